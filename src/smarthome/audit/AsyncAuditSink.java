@@ -0,0 +1,161 @@
+package smarthome.audit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//device threads only publish into a lock-free ring buffer,
+//a background writer drains it in batches into a rolling file with one fsync per batch
+public class AsyncAuditSink implements AuditSink, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 512;
+    public static final long DEFAULT_MAX_FILE_BYTES = 16L * 1024 * 1024;
+    public static final int DEFAULT_KEEP_FILES = 5;
+
+    private final RingBuffer<AuditRecord> ring;
+    private final RollingAuditFile file;
+    private final OverflowPolicy policy;
+    private final int sampleEvery;
+    private final int batchSize;
+    private final Thread writer;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final AtomicLong overflows = new AtomicLong();
+    //producers currently inside record(); close() waits for zero before the final drain
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile IOException failure;
+    private volatile boolean closed;
+    //closed and no producer can still publish, so the next empty drain is the last one
+    private volatile boolean fenced;
+
+    public AsyncAuditSink(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY, OverflowPolicy.BLOCK, 1);
+    }
+
+    public AsyncAuditSink(Path path, int capacity, OverflowPolicy policy, int sampleEvery) throws IOException {
+        this(path, capacity, policy, sampleEvery, DEFAULT_BATCH_SIZE, DEFAULT_MAX_FILE_BYTES, DEFAULT_KEEP_FILES);
+    }
+
+    public AsyncAuditSink(Path path, int capacity, OverflowPolicy policy, int sampleEvery,
+                          int batchSize, long maxFileBytes, int keepFiles) throws IOException {
+        if (policy == null) {
+            throw new IllegalArgumentException("OverflowPolicy cannot be null");
+        }
+        if (sampleEvery <= 0 || batchSize <= 0 || maxFileBytes <= 0 || keepFiles <= 0) {
+            throw new IllegalArgumentException("sampleEvery, batchSize, maxFileBytes and keepFiles must be positive");
+        }
+        this.ring = new RingBuffer<>(capacity);
+        this.file = new RollingAuditFile(path, maxFileBytes, keepFiles);
+        this.policy = policy;
+        this.sampleEvery = sampleEvery;
+        this.batchSize = batchSize;
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void record(AuditRecord record) {
+        inFlight.incrementAndGet();
+        try {
+            publish(record);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void publish(AuditRecord record) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        if (ring.offer(record)) {
+            accepted.increment();
+            return;
+        }
+
+        boolean wait = switch (policy) {
+            case BLOCK -> true;
+            case DROP -> false;
+            case SAMPLE -> overflows.incrementAndGet() % sampleEvery == 0;
+        };
+        if (!wait) {
+            dropped.increment();
+            return;
+        }
+        while (!ring.offer(record)) {
+            if (closed) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(50_000);
+        }
+        accepted.increment();
+    }
+
+    public long acceptedCount() {
+        return accepted.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    //last write error, the file is reopened and the writer carries on with the next batch
+    public IOException lastFailure() {
+        return failure;
+    }
+
+    //stops accepting records, writes what is buffered and closes the file
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        //a producer that passed the closed check before it was set may still be publishing
+        while (inFlight.get() > 0) {
+            LockSupport.parkNanos(10_000);
+        }
+        fenced = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        file.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeLoop() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean stopping = fenced;
+            if (ring.drainTo(batch, batchSize) > 0) {
+                try {
+                    file.append(batch);
+                    written.add(batch.size());
+                } catch (IOException ex) {
+                    failure = ex;
+                    dropped.add(batch.size());
+                }
+                batch.clear();
+            } else if (stopping) {
+                return;
+            } else {
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package smarthome.audit;
+
+//one security-relevant event on a device
+public record AuditRecord(long timestampMillis, String device, String action, Outcome outcome, String detail) {
+
+    public enum Outcome { ATTEMPT, SUCCESS, FAIL }
+
+    public static AuditRecord of(String device, String action, Outcome outcome, String detail) {
+        return new AuditRecord(System.currentTimeMillis(), device, action, outcome, detail);
+    }
+
+    //same wording the console logger always printed
+    public String toConsoleLine() {
+        return switch (outcome) {
+            case ATTEMPT -> "[SECURITY-LOG] " + action + " on " + device;
+            case SUCCESS -> "[SECURITY-LOG] " + action + " SUCCESS on " + device;
+            case FAIL -> "[SECURITY-LOG] " + action + " FAIL on " + device + " : " + detail;
+        };
+    }
+
+    public String toFileLine() {
+        return timestampMillis + "\t" + outcome + "\t" + device + "\t" + action
+            + (detail == null ? "" : "\t" + detail.replace('\n', ' '));
+    }
+}
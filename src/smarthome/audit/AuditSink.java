@@ -0,0 +1,10 @@
+package smarthome.audit;
+
+//destination of SecurityLoggerDecorator records
+public interface AuditSink {
+    void record(AuditRecord record);
+
+    static AuditSink console() {
+        return ConsoleAuditSink.INSTANCE;
+    }
+}
@@ -0,0 +1,14 @@
+package smarthome.audit;
+
+//synchronous console output, the original SecurityLoggerDecorator behaviour
+public final class ConsoleAuditSink implements AuditSink {
+    static final ConsoleAuditSink INSTANCE = new ConsoleAuditSink();
+
+    private ConsoleAuditSink() {
+    }
+
+    @Override
+    public void record(AuditRecord record) {
+        System.out.println(record.toConsoleLine());
+    }
+}
@@ -0,0 +1,11 @@
+package smarthome.audit;
+
+//what AsyncAuditSink does when its ring buffer is full
+public enum OverflowPolicy {
+    //caller waits until the writer frees a slot
+    BLOCK,
+    //record is discarded and counted as dropped
+    DROP,
+    //every n-th overflowing record waits for a slot, the others are dropped
+    SAMPLE
+}
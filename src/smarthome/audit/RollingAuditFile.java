@@ -0,0 +1,75 @@
+package smarthome.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+//append-only audit file, rolled to name.1 .. name.N once it grows past maxBytes
+//a whole batch is written and forced to disk with a single fsync
+final class RollingAuditFile implements AutoCloseable {
+    private final Path path;
+    private final long maxBytes;
+    private final int keepFiles;
+    private FileChannel channel;
+
+    RollingAuditFile(Path path, long maxBytes, int keepFiles) throws IOException {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.keepFiles = keepFiles;
+        this.channel = open();
+    }
+
+    void append(List<AuditRecord> batch) throws IOException {
+        //a failed roll may have left the channel closed, pick the file up again
+        if (!channel.isOpen()) {
+            channel = open();
+        }
+        StringBuilder text = new StringBuilder(batch.size() * 64);
+        for (AuditRecord record : batch) {
+            text.append(record.toFileLine()).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+        if (channel.size() >= maxBytes) {
+            roll();
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        try {
+            for (int i = keepFiles - 1; i >= 1; i--) {
+                Path older = rolled(i);
+                if (Files.exists(older)) {
+                    Files.move(older, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            //reopen even if a move failed, the current file just keeps growing until the next roll
+            channel = open();
+        }
+    }
+
+    private Path rolled(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,7 @@
+package smarthome.bench;
+
+//one measured operation; run() is invoked many times per iteration
+@FunctionalInterface
+public interface Benchmark {
+    void run(Blackhole bh) throws Exception;
+}
@@ -0,0 +1,10 @@
+package smarthome.bench;
+
+//average time per operation over the measurement iterations, error is one standard deviation
+public record BenchmarkResult(String name, double nanosPerOp, double errorNanos, long operations) {
+
+    @Override
+    public String toString() {
+        return String.format("%-55s %14.1f +- %10.1f ns/op  (%d ops)", name, nanosPerOp, errorNanos, operations);
+    }
+}
@@ -0,0 +1,127 @@
+package smarthome.bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+//minimal JMH-style harness: warmup iterations, then timed measurement iterations
+//operations run in calibrated batches so System.nanoTime() is not part of the measured cost
+public class BenchmarkRunner {
+    public static final int DEFAULT_WARMUP_ITERATIONS = 3;
+    public static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+    public static final long DEFAULT_ITERATION_MILLIS = 1000;
+    private static final long MIN_BATCH_NANOS = 100_000;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final PrintStream out;
+    private final Map<String, Callable<Benchmark>> benchmarks = new LinkedHashMap<>();
+
+    public BenchmarkRunner(PrintStream out) {
+        this(DEFAULT_WARMUP_ITERATIONS, DEFAULT_MEASUREMENT_ITERATIONS, DEFAULT_ITERATION_MILLIS, out);
+    }
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis, PrintStream out) {
+        if (warmupIterations < 0 || measurementIterations <= 0 || iterationMillis <= 0) {
+            throw new IllegalArgumentException("Iteration counts and time must be positive");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.out = out;
+    }
+
+    public BenchmarkRunner add(String name, Benchmark benchmark) {
+        return addLazy(name, () -> benchmark);
+    }
+
+    //setup runs only if the benchmark passes the filter, so large fixtures are not built for nothing
+    public BenchmarkRunner addLazy(String name, Callable<Benchmark> setup) {
+        if (benchmarks.putIfAbsent(name, setup) != null) {
+            throw new IllegalArgumentException("Duplicate benchmark: " + name);
+        }
+        return this;
+    }
+
+    public List<BenchmarkResult> run(Pattern filter) throws Exception {
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (Map.Entry<String, Callable<Benchmark>> entry : benchmarks.entrySet()) {
+            if (filter != null && !filter.matcher(entry.getKey()).find()) {
+                continue;
+            }
+            BenchmarkResult result = measure(entry.getKey(), entry.getValue().call());
+            out.println(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private BenchmarkResult measure(String name, Benchmark benchmark) throws Exception {
+        Blackhole bh = new Blackhole();
+        long batch = calibrate(benchmark, bh);
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(benchmark, bh, batch);
+        }
+
+        double[] samples = new double[measurementIterations];
+        long operations = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] run = iteration(benchmark, bh, batch);
+            samples[i] = (double) run[1] / run[0];
+            operations += run[0];
+        }
+        if (bh.fold() == Long.MIN_VALUE) {
+            out.println("(blackhole)");
+        }
+
+        double mean = 0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= samples.length;
+        double variance = 0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        double error = samples.length > 1 ? Math.sqrt(variance / (samples.length - 1)) : 0;
+        return new BenchmarkResult(name, mean, error, operations);
+    }
+
+    //doubles the batch until one batch takes long enough to time reliably
+    private long calibrate(Benchmark benchmark, Blackhole bh) throws Exception {
+        long batch = 1;
+        while (true) {
+            long start = System.nanoTime();
+            for (long i = 0; i < batch; i++) {
+                benchmark.run(bh);
+            }
+            if (System.nanoTime() - start >= MIN_BATCH_NANOS || batch >= (1L << 30)) {
+                return batch;
+            }
+            batch <<= 1;
+        }
+    }
+
+    //returns {operations, elapsed nanos}
+    private long[] iteration(Benchmark benchmark, Blackhole bh, long batch) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long i = 0; i < batch; i++) {
+                benchmark.run(bh);
+            }
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[] {operations, elapsed};
+    }
+}
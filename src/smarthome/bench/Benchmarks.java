@@ -0,0 +1,60 @@
+package smarthome.bench;
+
+import smarthome.logging.Level;
+import smarthome.logging.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+//entry point: java smarthome.bench.Benchmarks [regex] [-wi n] [-i n] [-t millis]
+//flags follow JMH: warmup iterations, measurement iterations, time per iteration
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Pattern filter = null;
+        int warmup = BenchmarkRunner.DEFAULT_WARMUP_ITERATIONS;
+        int iterations = BenchmarkRunner.DEFAULT_MEASUREMENT_ITERATIONS;
+        long millis = BenchmarkRunner.DEFAULT_ITERATION_MILLIS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi" -> warmup = Integer.parseInt(args[++i]);
+                case "-i" -> iterations = Integer.parseInt(args[++i]);
+                case "-t" -> millis = Long.parseLong(args[++i]);
+                default -> filter = Pattern.compile(args[i]);
+            }
+        }
+
+        //devices and scenes print a lot; results go to the real stdout only
+        PrintStream out = System.out;
+        Log.setLevel(Level.OFF);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Path dir = Files.createTempDirectory("smarthome-bench");
+        try {
+            BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, millis, out);
+            DeviceBenchmarks.register(runner);
+            SceneBenchmarks.register(runner);
+            SerializationBenchmarks.register(runner, dir);
+            runner.run(filter);
+        } finally {
+            System.setOut(out);
+            deleteRecursively(dir);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
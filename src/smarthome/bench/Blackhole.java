@@ -0,0 +1,24 @@
+package smarthome.bench;
+
+//keeps benchmark results alive so the JIT cannot drop the measured work
+public final class Blackhole {
+    private Object lastObject;
+    private long accumulator;
+
+    public void consume(Object value) {
+        lastObject = value;
+    }
+
+    public void consume(long value) {
+        accumulator += value;
+    }
+
+    public void consume(boolean value) {
+        accumulator += value ? 1 : 0;
+    }
+
+    //read once after the run so the stores above are observable
+    long fold() {
+        return accumulator + (lastObject == null ? 0 : 1);
+    }
+}
@@ -0,0 +1,52 @@
+package smarthome.bench;
+
+import smarthome.audit.AuditSink;
+import smarthome.decorators.DeviceDecorator;
+import smarthome.decorators.EnergySavingDecorator;
+import smarthome.decorators.RemoteAccessDecorator;
+import smarthome.decorators.SchedulerDecorator;
+import smarthome.decorators.SecurityLoggerDecorator;
+import smarthome.decorators.VoiceControlDecorator;
+import smarthome.devices.Device;
+import smarthome.devices.Light;
+
+import java.time.LocalTime;
+
+//status() and operate() through 0..5 decorator layers, plus the compiled flat pipeline
+final class DeviceBenchmarks {
+    static final int MAX_LAYERS = 5;
+    private static final AuditSink DISCARD = record -> { };
+
+    private DeviceBenchmarks() {
+    }
+
+    static void register(BenchmarkRunner runner) {
+        for (int layers = 0; layers <= MAX_LAYERS; layers++) {
+            Device device = decorate(new Light(NoOpController.INSTANCE), layers);
+            runner.add("device.status layers=" + layers, bh -> bh.consume(device.status()));
+        }
+        for (int layers = 0; layers <= MAX_LAYERS; layers++) {
+            Device device = decorate(new Light(NoOpController.INSTANCE), layers);
+            runner.add("decorator.operate layers=" + layers, bh -> device.operate());
+        }
+        for (int layers = 1; layers <= MAX_LAYERS; layers++) {
+            Device compiled = ((DeviceDecorator) decorate(new Light(NoOpController.INSTANCE), layers)).compile();
+            runner.add("decorator.operate compiled layers=" + layers, bh -> compiled.operate());
+        }
+    }
+
+    //innermost first: energy, voice, remote, security logger, scheduler
+    static Device decorate(Device device, int layers) {
+        Device result = device;
+        for (int i = 0; i < layers; i++) {
+            result = switch (i) {
+                case 0 -> new EnergySavingDecorator(result);
+                case 1 -> new VoiceControlDecorator(result);
+                case 2 -> new RemoteAccessDecorator(result);
+                case 3 -> new SecurityLoggerDecorator(result, DISCARD);
+                default -> new SchedulerDecorator(result, LocalTime.of(8, 0));
+            };
+        }
+        return result;
+    }
+}
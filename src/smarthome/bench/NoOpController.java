@@ -0,0 +1,23 @@
+package smarthome.bench;
+
+import smarthome.controllers.DeviceController;
+
+//controller that drops everything, so benchmarks measure our code and not console output
+public final class NoOpController implements DeviceController {
+    public static final NoOpController INSTANCE = new NoOpController();
+
+    private NoOpController() {
+    }
+
+    @Override
+    public void powerOn(String deviceName) {
+    }
+
+    @Override
+    public void powerOff(String deviceName) {
+    }
+
+    @Override
+    public void send(String deviceName, String payload) {
+    }
+}
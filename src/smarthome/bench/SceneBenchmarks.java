@@ -0,0 +1,71 @@
+package smarthome.bench;
+
+import smarthome.facade.HomeAutomationFacade;
+import smarthome.facade.HomeAutomationFacadeBuilder;
+import smarthome.facade.SceneDefinition;
+import smarthome.facade.SceneExecutor;
+import smarthome.factory.SmartDeviceFactory;
+import smarthome.factory.WifiDeviceFactory;
+import smarthome.devices.Light;
+import smarthome.devices.RobotVacuum;
+import smarthome.devices.SmartDoor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//every facade scene with no-op controllers, sequential and parallel
+//after the first run most state writes are skipped by the reconciler, so this is the steady state
+final class SceneBenchmarks {
+
+    private SceneBenchmarks() {
+    }
+
+    static void register(BenchmarkRunner runner) {
+        register(runner, "sequential", SceneExecutor.sequential());
+        register(runner, "parallel", SceneExecutor.parallel(lanePool()));
+    }
+
+    //one daemon thread per lane of the widest scene, so no lane waits for a thread
+    private static ExecutorService lanePool() {
+        return Executors.newFixedThreadPool(8, r -> {
+            Thread thread = new Thread(r, "scene-lane");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void register(BenchmarkRunner runner, String mode, SceneExecutor executor) {
+        HomeAutomationFacade facade = home(executor);
+        runner.add("scene.party " + mode, bh -> bh.consume(facade.startPartyMode()));
+        runner.add("scene.night " + mode, bh -> bh.consume(facade.activateNightMode()));
+        runner.add("scene.leaveHome " + mode, bh -> bh.consume(facade.leaveHome()));
+        runner.add("scene.morning " + mode, bh -> bh.consume(facade.morningRoutine()));
+        runner.add("scene.custom " + mode, bh -> bh.consume(facade.runScene("movie")));
+    }
+
+    static HomeAutomationFacade home(SceneExecutor executor) {
+        SmartDeviceFactory factory = new WifiDeviceFactory(NoOpController.INSTANCE);
+        Light light = factory.createLight();
+        SmartDoor door = factory.createSmartDoor();
+        RobotVacuum vacuum = factory.createRobotVacuum();
+        return new HomeAutomationFacadeBuilder()
+            .withLight(light)
+            .withMusic(factory.createMusicSystem())
+            .withThermostat(factory.createThermostat())
+            .withCamera(factory.createSecurityCamera())
+            .withDoor(door)
+            .withVacuum(vacuum)
+            .withMirror(factory.createSmartMirror())
+            .withDecoratedDevices(new ArrayList<>(List.of(
+                DeviceBenchmarks.decorate(light, 3), DeviceBenchmarks.decorate(door, 4))))
+            .withSceneExecutor(executor)
+            .withScene(SceneDefinition.builder("movie")
+                .step("light", "brightness", 20)
+                .step("music", "volume", 40)
+                .step("music", "play", "movie_night")
+                .build())
+            .build();
+    }
+}
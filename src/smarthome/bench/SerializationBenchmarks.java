@@ -0,0 +1,55 @@
+package smarthome.bench;
+
+import smarthome.devices.Device;
+import smarthome.devices.Light;
+import smarthome.devices.MusicSystem;
+import smarthome.devices.RobotVacuum;
+import smarthome.devices.SecurityCamera;
+import smarthome.devices.SmartDoor;
+import smarthome.devices.Thermostat;
+import smarthome.util.StatusExporter;
+import smarthome.util.StatusImporter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+//StatusExporter.exportDevices and StatusImporter.importSnapshots from 10 up to 100k devices
+final class SerializationBenchmarks {
+    static final int[] SIZES = {10, 1_000, 100_000};
+
+    private SerializationBenchmarks() {
+    }
+
+    //devices and import files are only built for the sizes the filter selects
+    static void register(BenchmarkRunner runner, Path dir) {
+        for (int size : SIZES) {
+            Path exportFile = dir.resolve("export-" + size + ".json");
+            runner.addLazy("export.devices n=" + size, () -> {
+                List<Device> devices = devices(size);
+                return bh -> StatusExporter.exportDevices(devices, exportFile);
+            });
+
+            Path importFile = dir.resolve("import-" + size + ".json");
+            runner.addLazy("import.snapshots n=" + size, () -> {
+                StatusExporter.exportDevices(devices(size), importFile);
+                return bh -> bh.consume(StatusImporter.importSnapshots(importFile));
+            });
+        }
+    }
+
+    static List<Device> devices(int count) {
+        List<Device> devices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            devices.add(switch (i % 6) {
+                case 0 -> new Light(NoOpController.INSTANCE);
+                case 1 -> new MusicSystem(NoOpController.INSTANCE);
+                case 2 -> new Thermostat(NoOpController.INSTANCE);
+                case 3 -> new SecurityCamera(NoOpController.INSTANCE);
+                case 4 -> new SmartDoor(NoOpController.INSTANCE);
+                default -> new RobotVacuum(NoOpController.INSTANCE);
+            });
+        }
+        return devices;
+    }
+}
@@ -5,6 +5,8 @@ import smarthome.decorators.*;
 import smarthome.factory.*;
 import smarthome.facade.HomeAutomationFacade;
 import smarthome.facade.HomeAutomationFacadeBuilder;
+import smarthome.registry.DeviceRegistry;
+import smarthome.registry.RegisteredDevice;
 
 import java.time.LocalTime;
 import java.util.*;
@@ -13,7 +15,7 @@ import java.util.*;
 public class SmartHomeCLI {
     private final Scanner scanner;
     private HomeAutomationFacade facade;
-    private Map<String, Device> devices;
+    private DeviceRegistry devices;
     private boolean running;
     private String currentController;
 
@@ -62,7 +64,7 @@ public class SmartHomeCLI {
     }
 
     private void initializeDevices(SmartDeviceFactory factory) {
-        this.devices = new HashMap<>();
+        this.devices = new DeviceRegistry();
 
         // Initialize devices with selected controller
         Light light = factory.createLight();
@@ -89,13 +91,13 @@ public class SmartHomeCLI {
         Device decoratedMirror = new SecurityLoggerDecorator(mirror);
 
         // Register devices
-        devices.put("light", light);
-        devices.put("music", music);
-        devices.put("thermostat", thermostat);
-        devices.put("camera", camera);
-        devices.put("mirror", mirror);
-        devices.put("door", door);
-        devices.put("vacuum", vacuum);
+        devices.register("light", light, "living room");
+        devices.register("music", music, "living room");
+        devices.register("thermostat", thermostat, "hallway");
+        devices.register("camera", camera, "entrance");
+        devices.register("mirror", mirror, "bathroom");
+        devices.register("door", door, "entrance");
+        devices.register("vacuum", vacuum, "living room");
 
         // Create facade
         this.facade = new HomeAutomationFacadeBuilder()
@@ -518,11 +520,11 @@ public class SmartHomeCLI {
         System.out.println("│ Current Controller: " + String.format("%-48s", currentController) + " │");
         System.out.println("└─────────────────────────────────────────────────────────────────────┘\n");
 
-        for (Map.Entry<String, Device> entry : devices.entrySet()) {
-            System.out.println(" " + entry.getKey().toUpperCase());
-            System.out.println("   Name: " + entry.getValue().getName());
+        for (RegisteredDevice entry : devices.all()) {
+            System.out.println(" " + entry.key().toUpperCase() + " (" + entry.room() + ")");
+            System.out.println("   Name: " + entry.device().getName());
 
-            Map<String, Object> status = entry.getValue().status();
+            Map<String, Object> status = entry.device().status();
             System.out.println("   Status: " + status);
             System.out.println();
         }
@@ -0,0 +1,109 @@
+package smarthome.controllers;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+//adapter from the blocking DeviceController to AsyncDeviceController
+//a slow radio only delays its own future, callers can fan out and join on all of them
+//controller calls block on I/O, so they need a dedicated executor owned by the caller, never the common pool
+//a command that times out (or whose future is cancelled) is cancelled with an interrupt
+public class AsyncControllerBridge implements AsyncDeviceController {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final DeviceController controller;
+    private final ExecutorService executor;
+    private final Duration defaultTimeout;
+    private final LongAdder timedOut = new LongAdder();
+
+    public AsyncControllerBridge(DeviceController controller, ExecutorService executor) {
+        this(controller, executor, DEFAULT_TIMEOUT);
+    }
+
+    public AsyncControllerBridge(DeviceController controller, ExecutorService executor, Duration defaultTimeout) {
+        if (controller == null) {
+            throw new IllegalArgumentException("DeviceController cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (executor == ForkJoinPool.commonPool()) {
+            throw new IllegalArgumentException("Blocking controller calls need a dedicated executor, not the common pool");
+        }
+        checkTimeout(defaultTimeout);
+        this.controller = controller;
+        this.executor = executor;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    @Override
+    public CompletableFuture<Void> powerOn(String deviceName, Duration timeout) {
+        return submit(() -> controller.powerOn(deviceName), timeout);
+    }
+
+    @Override
+    public CompletableFuture<Void> powerOff(String deviceName, Duration timeout) {
+        return submit(() -> controller.powerOff(deviceName), timeout);
+    }
+
+    @Override
+    public CompletableFuture<Void> send(String deviceName, String payload, Duration timeout) {
+        return submit(() -> controller.send(deviceName, payload), timeout);
+    }
+
+    @Override
+    public Duration defaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public DeviceController getDelegate() {
+        return controller;
+    }
+
+    //commands that did not answer in time and were cancelled
+    public long timedOutCount() {
+        return timedOut.sum();
+    }
+
+    //the future fails with a TimeoutException when the controller does not answer in time
+    private CompletableFuture<Void> submit(Runnable command, Duration timeout) {
+        checkTimeout(timeout);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    command.run();
+                    result.complete(null);
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+        result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((ignored, ex) -> {
+            if (ex instanceof TimeoutException) {
+                timedOut.increment();
+                task.cancel(true);
+            } else if (ex instanceof CancellationException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static void checkTimeout(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package smarthome.controllers;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+//non-blocking counterpart of DeviceController
+//every command returns a future that completes once the controller acknowledged it
+public interface AsyncDeviceController {
+    CompletableFuture<Void> powerOn(String deviceName, Duration timeout);
+    CompletableFuture<Void> powerOff(String deviceName, Duration timeout);
+    CompletableFuture<Void> send(String deviceName, String payload, Duration timeout);
+
+    Duration defaultTimeout();
+
+    default CompletableFuture<Void> powerOn(String deviceName) {
+        return powerOn(deviceName, defaultTimeout());
+    }
+
+    default CompletableFuture<Void> powerOff(String deviceName) {
+        return powerOff(deviceName, defaultTimeout());
+    }
+
+    default CompletableFuture<Void> send(String deviceName, String payload) {
+        return send(deviceName, payload, defaultTimeout());
+    }
+
+    //bridges an existing blocking controller, running its calls on the given dedicated executor
+    static AsyncDeviceController of(DeviceController controller, ExecutorService executor, Duration defaultTimeout) {
+        return new AsyncControllerBridge(controller, executor, defaultTimeout);
+    }
+}
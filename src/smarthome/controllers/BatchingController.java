@@ -0,0 +1,228 @@
+package smarthome.controllers;
+
+import smarthome.scheduling.TimerTask;
+import smarthome.scheduling.TimerWheel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//decorator over any DeviceController (WiFi, Bluetooth, OldRemote adapter)
+//commands are queued and written out when the size limit is hit, when the time limit expires
+//(a timer flushes even if nothing else is sent) or when flush() is called
+//a flush writes per device: typed commands between power changes go out as one sendBatch(),
+//where a later int/bool command replaces an earlier one of the same type (only the last value matters);
+//text and no-arg commands are actions and are all kept. each device sees its commands in issue order
+public class BatchingController implements DeviceController, AutoCloseable {
+    public static final int DEFAULT_MAX_COMMANDS = 32;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+
+    private final DeviceController delegate;
+    private final int maxCommands;
+    private final long maxDelayMillis;
+    private final TimerWheel timer;
+    private final Object flushLock = new Object();
+
+    private List<Queued> pending = new ArrayList<>();
+    private TimerTask scheduledFlush;
+    private long flushes = 0;
+    private long merged = 0;
+
+    public BatchingController(DeviceController delegate) {
+        this(delegate, DEFAULT_MAX_COMMANDS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public BatchingController(DeviceController delegate, int maxCommands, long maxDelayMillis) {
+        this(delegate, maxCommands, maxDelayMillis, SharedTimer.WHEEL);
+    }
+
+    //timer runs the time-limit flush; it must be started
+    public BatchingController(DeviceController delegate, int maxCommands, long maxDelayMillis, TimerWheel timer) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("DeviceController cannot be null");
+        }
+        if (maxCommands <= 0) {
+            throw new IllegalArgumentException("maxCommands must be positive");
+        }
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("maxDelayMillis cannot be negative");
+        }
+        if (timer == null) {
+            throw new IllegalArgumentException("Timer cannot be null");
+        }
+        this.delegate = delegate;
+        this.maxCommands = maxCommands;
+        this.maxDelayMillis = maxDelayMillis;
+        this.timer = timer;
+    }
+
+    @Override
+    public void powerOn(String deviceName) {
+        enqueue(new Queued(Op.POWER_ON, deviceName, null, null));
+    }
+
+    @Override
+    public void powerOff(String deviceName) {
+        enqueue(new Queued(Op.POWER_OFF, deviceName, null, null));
+    }
+
+    @Override
+    public void send(String deviceName, String payload) {
+        enqueue(new Queued(Op.SEND, deviceName, payload, null));
+    }
+
+    //kept typed so a delegate with a binary wire still gets the Command
+    @Override
+    public void send(String deviceName, Command command) {
+        enqueue(new Queued(Op.SEND, deviceName, null, command));
+    }
+
+    //writes every queued command to the wrapped controller
+    //flushLock keeps batches in order; enqueueing only needs the monitor, so senders never wait on I/O
+    public void flush() {
+        synchronized (flushLock) {
+            List<Queued> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel();
+                    scheduledFlush = null;
+                }
+                flushes++;
+            }
+            Map<String, List<Queued>> byDevice = new LinkedHashMap<>();
+            for (Queued command : batch) {
+                byDevice.computeIfAbsent(command.deviceName(), d -> new ArrayList<>()).add(command);
+            }
+            for (Map.Entry<String, List<Queued>> device : byDevice.entrySet()) {
+                writeDevice(device.getKey(), device.getValue());
+            }
+        }
+    }
+
+    public synchronized int pendingCommands() {
+        return pending.size();
+    }
+
+    public synchronized long flushCount() {
+        return flushes;
+    }
+
+    //commands dropped because a later one of the same type replaced them
+    public synchronized long mergedCount() {
+        return merged;
+    }
+
+    public DeviceController getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void enqueue(Queued command) {
+        boolean full;
+        synchronized (this) {
+            pending.add(command);
+            full = pending.size() >= maxCommands || maxDelayMillis == 0;
+            if (!full && scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flush, Duration.ofMillis(maxDelayMillis));
+            }
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    //power changes and text payloads end the current typed run, so they keep their place
+    private void writeDevice(String deviceName, List<Queued> commands) {
+        List<Command> run = new ArrayList<>();
+        int superseded = 0;
+        for (Queued queued : commands) {
+            if (queued.command() != null) {
+                superseded += addMerged(run, queued.command());
+                continue;
+            }
+            sendRun(deviceName, run);
+            queued.writeTo(delegate);
+        }
+        sendRun(deviceName, run);
+        if (superseded > 0) {
+            synchronized (this) {
+                merged += superseded;
+            }
+        }
+    }
+
+    private static int addMerged(List<Command> run, Command command) {
+        CommandType.Arg arg = command.type().arg();
+        int removed = 0;
+        if (arg == CommandType.Arg.INT || arg == CommandType.Arg.BOOL) {
+            for (int i = run.size() - 1; i >= 0; i--) {
+                if (run.get(i).type() == command.type()) {
+                    run.remove(i);
+                    removed++;
+                }
+            }
+        }
+        run.add(command);
+        return removed;
+    }
+
+    private void sendRun(String deviceName, List<Command> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (run.size() == 1) {
+            delegate.send(deviceName, run.get(0));
+        } else {
+            delegate.sendBatch(deviceName, List.copyOf(run));
+        }
+        run.clear();
+    }
+
+    private enum Op { POWER_ON, POWER_OFF, SEND }
+
+    private record Queued(Op op, String deviceName, String payload, Command command) {
+        void writeTo(DeviceController controller) {
+            switch (op) {
+                case POWER_ON -> controller.powerOn(deviceName);
+                case POWER_OFF -> controller.powerOff(deviceName);
+                case SEND -> {
+                    if (command != null) {
+                        controller.send(deviceName, command);
+                    } else {
+                        controller.send(deviceName, payload);
+                    }
+                }
+            }
+        }
+    }
+
+    //time-limit flushes of controllers created without their own timer
+    //flushes block on controller I/O, so they get their own daemon thread instead of the common pool
+    private static final class SharedTimer {
+        static final ExecutorService FLUSHER = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "batch-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        static final TimerWheel WHEEL = new TimerWheel(Clock.systemDefaultZone(), 10,
+            TimerWheel.DEFAULT_WHEEL_SIZE, FLUSHER);
+
+        static {
+            WHEEL.start();
+        }
+    }
+}
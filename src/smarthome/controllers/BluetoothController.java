@@ -1,19 +1,41 @@
 package smarthome.controllers;
+
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.util.List;
+
 //concrete implementor in bridge pattern
 
 public class BluetoothController implements DeviceController {
+    private static final Logger LOG = Log.getLogger(BluetoothController.class);
+
     @Override
     public void powerOn(String deviceName) {
-        System.out.println("[Bluetooth] " + deviceName + " → POWER ON");
+        LOG.info("[Bluetooth] {} → POWER ON", deviceName);
     }
 
     @Override
     public void powerOff(String deviceName) {
-        System.out.println("[Bluetooth] " + deviceName + " → POWER OFF");
+        LOG.info("[Bluetooth] {} → POWER OFF", deviceName);
     }
 
     @Override
     public void send(String deviceName, String payload) {
-        System.out.println("[Bluetooth] " + deviceName + " → CMD {" + payload + "}");
+        LOG.info("[Bluetooth] {} → CMD {{}}", deviceName, payload);
+    }
+
+    //typed commands go out as CommandCodec frames; the text is only logged alongside
+    @Override
+    public void send(String deviceName, Command command) {
+        byte[] frame = CommandCodec.encode(command);
+        LOG.info("[Bluetooth] {} → CMD {{}} [{}]", deviceName, command.payload(), CommandCodec.hex(frame));
+    }
+
+    //one frame carrying every command of the batch
+    @Override
+    public void sendBatch(String deviceName, List<Command> commands) {
+        byte[] frame = CommandCodec.encode(commands);
+        LOG.info("[Bluetooth] {} → BATCH {} cmds [{}]", deviceName, commands.size(), CommandCodec.hex(frame));
     }
 }
@@ -0,0 +1,143 @@
+package smarthome.controllers;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+//typed device command; the text payload is built once per instance
+//int commands in [-128, 127], boolean and no-arg commands are shared constants,
+//so the common cases cost no allocation at all
+public final class Command {
+    private static final int INT_CACHE_LOW = -128;
+    private static final int INT_CACHE_HIGH = 127;
+    //bounds the text cache so unbounded user input (mirror messages) cannot grow it forever
+    private static final int TEXT_CACHE_LIMIT = 1024;
+
+    private static final Command[][] INT_CACHE = new Command[CommandType.values().length][];
+    private static final Command[][] BOOL_CACHE = new Command[CommandType.values().length][];
+    private static final Command[] NONE_CACHE = new Command[CommandType.values().length];
+    private static final Map<CommandType, Map<String, Command>> TEXT_CACHE = new ConcurrentHashMap<>();
+
+    static {
+        for (CommandType type : CommandType.values()) {
+            switch (type.arg()) {
+                case INT -> {
+                    Command[] cached = new Command[INT_CACHE_HIGH - INT_CACHE_LOW + 1];
+                    for (int i = 0; i < cached.length; i++) {
+                        cached[i] = new Command(type, i + INT_CACHE_LOW, null);
+                    }
+                    INT_CACHE[type.ordinal()] = cached;
+                }
+                case BOOL -> BOOL_CACHE[type.ordinal()] = new Command[] {
+                    new Command(type, 0, null), new Command(type, 1, null)};
+                case NONE -> NONE_CACHE[type.ordinal()] = new Command(type, 0, null);
+                case TEXT -> TEXT_CACHE.put(type, new ConcurrentHashMap<>());
+            }
+        }
+    }
+
+    private final CommandType type;
+    private final int value;
+    private final String text;
+    private String payload;
+
+    private Command(CommandType type, int value, String text) {
+        this.type = type;
+        this.value = value;
+        this.text = text;
+    }
+
+    public static Command of(CommandType type) {
+        expect(type, CommandType.Arg.NONE);
+        return NONE_CACHE[type.ordinal()];
+    }
+
+    public static Command of(CommandType type, int value) {
+        expect(type, CommandType.Arg.INT);
+        if (value >= INT_CACHE_LOW && value <= INT_CACHE_HIGH) {
+            return INT_CACHE[type.ordinal()][value - INT_CACHE_LOW];
+        }
+        return new Command(type, value, null);
+    }
+
+    public static Command of(CommandType type, boolean value) {
+        expect(type, CommandType.Arg.BOOL);
+        return BOOL_CACHE[type.ordinal()][value ? 1 : 0];
+    }
+
+    public static Command of(CommandType type, String text) {
+        expect(type, CommandType.Arg.TEXT);
+        if (text == null) {
+            throw new IllegalArgumentException("Command text cannot be null");
+        }
+        Map<String, Command> cache = TEXT_CACHE.get(type);
+        Command command = cache.get(text);
+        if (command != null) {
+            return command;
+        }
+        command = new Command(type, 0, text);
+        if (cache.size() < TEXT_CACHE_LIMIT) {
+            Command raced = cache.putIfAbsent(text, command);
+            if (raced != null) {
+                return raced;
+            }
+        }
+        return command;
+    }
+
+    public CommandType type() {
+        return type;
+    }
+
+    public int intValue() {
+        return value;
+    }
+
+    public boolean boolValue() {
+        return value != 0;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    //text form understood by every controller; benign race, all threads build the same string
+    public String payload() {
+        String cached = payload;
+        if (cached == null) {
+            cached = switch (type.arg()) {
+                case NONE -> type.format(null);
+                case INT -> type.format(Integer.toString(value));
+                case BOOL -> type.format(Boolean.toString(value != 0));
+                case TEXT -> type.format(text);
+            };
+            payload = cached;
+        }
+        return cached;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Command other && type == other.type && value == other.value
+            && Objects.equals(text, other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return (type.hashCode() * 31 + value) * 31 + (text == null ? 0 : text.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return payload();
+    }
+
+    private static void expect(CommandType type, CommandType.Arg arg) {
+        if (type == null) {
+            throw new IllegalArgumentException("CommandType cannot be null");
+        }
+        if (type.arg() != arg) {
+            throw new IllegalArgumentException(type + " takes " + type.arg() + " argument, not " + arg);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package smarthome.controllers;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+//compact binary form of a Command for controllers that talk bytes instead of text
+//layout: type byte (CommandType.code()), then a zigzag varint for INT, one byte for BOOL,
+//varint length + UTF-8 for TEXT, nothing for NONE
+//so "target=21C" and "locked=true" are 2 bytes each
+public final class CommandCodec {
+    private CommandCodec() {
+    }
+
+    public static int encodedSize(Command command) {
+        return switch (command.type().arg()) {
+            case NONE -> 1;
+            case BOOL -> 2;
+            case INT -> 1 + varintSize(zigzag(command.intValue()));
+            case TEXT -> {
+                int length = utf8Length(command.text());
+                yield 1 + varintSize(length) + length;
+            }
+        };
+    }
+
+    public static byte[] encode(Command command) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(command));
+        encode(command, buffer);
+        return buffer.array();
+    }
+
+    //writes into the caller's buffer, so encoding int/bool commands allocates nothing
+    public static void encode(Command command, ByteBuffer out) {
+        if (command == null) {
+            throw new IllegalArgumentException("Command cannot be null");
+        }
+        if (out.remaining() < encodedSize(command)) {
+            throw new BufferOverflowException();
+        }
+        out.put((byte) command.type().code());
+        switch (command.type().arg()) {
+            case NONE -> { }
+            case BOOL -> out.put((byte) (command.boolValue() ? 1 : 0));
+            case INT -> putVarint(out, zigzag(command.intValue()));
+            case TEXT -> {
+                byte[] bytes = command.text().getBytes(StandardCharsets.UTF_8);
+                putVarint(out, bytes.length);
+                out.put(bytes);
+            }
+        }
+    }
+
+    //frames of all commands back to back, the form of one batched write
+    public static byte[] encode(List<Command> commands) {
+        int size = 0;
+        for (Command command : commands) {
+            size += encodedSize(command);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Command command : commands) {
+            encode(command, buffer);
+        }
+        return buffer.array();
+    }
+
+    //returns the cached instance for common commands
+    public static Command decode(ByteBuffer in) {
+        CommandType type = CommandType.fromCode(in.get() & 0xFF);
+        return switch (type.arg()) {
+            case NONE -> Command.of(type);
+            case BOOL -> Command.of(type, in.get() != 0);
+            case INT -> Command.of(type, unzigzag(getVarint(in)));
+            case TEXT -> {
+                int length = getVarint(in);
+                if (length < 0 || length > in.remaining()) {
+                    throw new IllegalArgumentException("Bad text length: " + length);
+                }
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                yield Command.of(type, new String(bytes, StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    public static Command decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    //"01 a0 01", for controllers that log the frame they put on the wire
+    static String hex(byte[] frame) {
+        StringBuilder text = new StringBuilder(frame.length * 3);
+        for (byte b : frame) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return text.toString();
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                //unpaired surrogates are encoded as '?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
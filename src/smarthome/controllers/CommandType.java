@@ -0,0 +1,64 @@
+package smarthome.controllers;
+
+//every command a device can send
+//code is the type byte on the binary wire; it is fixed per constant, so reordering or adding
+//constants never changes what is already deployed. never reuse a code
+public enum CommandType {
+    BRIGHTNESS(0x01, Arg.INT, "brightness=", ""),
+    TARGET(0x02, Arg.INT, "target=", "C"),
+    VOLUME(0x03, Arg.INT, "volume=", ""),
+    POWER(0x04, Arg.INT, "power=", ""),
+    LOCKED(0x05, Arg.BOOL, "locked=", ""),
+    ARMED(0x06, Arg.BOOL, "armed=", ""),
+    PLAY(0x07, Arg.TEXT, "play='", "'"),
+    DISPLAY(0x08, Arg.TEXT, "display=\"", "\""),
+    CLEAN(0x09, Arg.TEXT, "clean=\"", "\""),
+    STOP(0x0A, Arg.NONE, "stop", ""),
+    DOCK(0x0B, Arg.NONE, "dock", "");
+
+    public enum Arg { NONE, INT, BOOL, TEXT }
+
+    private static final CommandType[] BY_CODE = new CommandType[256];
+
+    static {
+        for (CommandType type : values()) {
+            if (BY_CODE[type.code] != null) {
+                throw new IllegalStateException("Duplicate command code: " + type.code);
+            }
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+    private final Arg arg;
+    private final String prefix;
+    private final String suffix;
+
+    CommandType(int code, Arg arg, String prefix, String suffix) {
+        this.code = code;
+        this.arg = arg;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public Arg arg() {
+        return arg;
+    }
+
+    //same text the devices always sent, e.g. "target=21C"
+    String format(String value) {
+        return value == null ? prefix : prefix + value + suffix;
+    }
+
+    static CommandType fromCode(int code) {
+        CommandType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown command type: " + code);
+        }
+        return type;
+    }
+}
@@ -1,9 +1,23 @@
 package smarthome.controllers;
+
+import java.util.List;
+
 //implementor in bridge pattern
 
 public interface DeviceController {
     void powerOn(String deviceName);
     void powerOff(String deviceName);
     void send(String deviceName, String payload);
-}
 
+    //typed form; controllers with a binary wire can override and use CommandCodec
+    default void send(String deviceName, Command command) {
+        send(deviceName, command.payload());
+    }
+
+    //several commands for one device in one write; controllers with a binary wire send one frame
+    default void sendBatch(String deviceName, List<Command> commands) {
+        for (Command command : commands) {
+            send(deviceName, command);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package smarthome.controllers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//assigns every device name a dense id (1, 2, 3...) the first time it is seen
+//with a file the table is loaded on start and every new id is appended as a "name=id" line,
+//so a device keeps its id across restarts
+//once a file-backed table is closed, known names still resolve but new names are refused
+public class DeviceIdTable implements AutoCloseable {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Path file;
+    private BufferedWriter writer;
+    private int nextId = 1;
+
+    //in-memory only
+    public DeviceIdTable() {
+        this.file = null;
+    }
+
+    public DeviceIdTable(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        this.file = file;
+        if (Files.exists(file)) {
+            load(file);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public int idFor(String deviceName) {
+        return entry(deviceName).id;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    //id and the "name: " prefix OldRemote expects, both computed once per device
+    Entry entry(String deviceName) {
+        Entry entry = entries.get(deviceName);
+        return entry != null ? entry : allocate(deviceName);
+    }
+
+    private synchronized Entry allocate(String deviceName) {
+        Entry entry = entries.get(deviceName);
+        if (entry != null) {
+            return entry;
+        }
+        if (deviceName.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Device name cannot contain line breaks");
+        }
+        if (file != null && writer == null) {
+            throw new IllegalStateException("Id table " + file + " is closed, cannot add " + deviceName);
+        }
+        entry = new Entry(nextId++, deviceName + ": ");
+        if (writer != null) {
+            try {
+                writer.write(deviceName + "=" + entry.id);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException ex) {
+                nextId--;
+                throw new UncheckedIOException("Cannot persist id for " + deviceName, ex);
+            }
+        }
+        entries.put(deviceName, entry);
+        return entry;
+    }
+
+    private void load(Path file) throws IOException {
+        Map<Integer, String> names = new HashMap<>();
+        int line = 0;
+        for (String text : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            //names may contain '=', ids never do
+            int split = text.lastIndexOf('=');
+            if (split <= 0) {
+                throw new IOException("Malformed id table line " + line + " in " + file);
+            }
+            String name = text.substring(0, split);
+            int id;
+            try {
+                id = Integer.parseInt(text.substring(split + 1).trim());
+            } catch (NumberFormatException ex) {
+                throw new IOException("Malformed id on line " + line + " in " + file, ex);
+            }
+            if (id <= 0) {
+                throw new IOException("Id must be positive on line " + line + " in " + file);
+            }
+            if (entries.containsKey(name)) {
+                throw new IOException("Duplicate device name '" + name + "' on line " + line + " in " + file);
+            }
+            String owner = names.putIfAbsent(id, name);
+            if (owner != null) {
+                throw new IOException("Id " + id + " on line " + line + " is already used by '" + owner + "' in " + file);
+            }
+            entries.put(name, new Entry(id, name + ": "));
+            nextId = Math.max(nextId, id + 1);
+        }
+    }
+
+    static final class Entry {
+        final int id;
+        final String prefix;
+
+        Entry(int id, String prefix) {
+            this.id = id;
+            this.prefix = prefix;
+        }
+    }
+}
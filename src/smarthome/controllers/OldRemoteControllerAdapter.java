@@ -5,6 +5,19 @@ import smarthome.thirdparty.OldRemote;
 //adapter to make OldRemote compatible with DeviceController
 public class OldRemoteControllerAdapter implements DeviceController {
     private final OldRemote oldRemote = new OldRemote();
+    private final DeviceIdTable ids;
+
+    public OldRemoteControllerAdapter() {
+        this(new DeviceIdTable());
+    }
+
+    //pass a file-backed table to keep ids stable across restarts
+    public OldRemoteControllerAdapter(DeviceIdTable ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("DeviceIdTable cannot be null");
+        }
+        this.ids = ids;
+    }
 
     @Override
     public void powerOn(String deviceName) {
@@ -19,8 +32,22 @@ public class OldRemoteControllerAdapter implements DeviceController {
     @Override
     public void send(String deviceName, String payload) {
         //OldRemote.cmd() expects (int id, String data)
-        //we convert deviceName to a stable int using hashCode
-        int deviceId = Math.abs(deviceName.hashCode());
-        oldRemote.cmd(deviceId, deviceName + ": " + payload);
+        //ids come from the table, so they are unique and never negative
+        DeviceIdTable.Entry entry = ids.entry(deviceName);
+        oldRemote.cmd(entry.id, entry.prefix + payload);
+    }
+
+    //OldRemote.cmd() only takes text and cannot change, so the frame is the command's text;
+    //the typed path still skips re-formatting, Command caches its payload
+    @Override
+    public void send(String deviceName, Command command) {
+        if (command == null) {
+            throw new IllegalArgumentException("Command cannot be null");
+        }
+        send(deviceName, command.payload());
+    }
+
+    public DeviceIdTable getIdTable() {
+        return ids;
     }
 }
@@ -1,19 +1,41 @@
 package smarthome.controllers;
+
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.util.List;
+
 //concrete implementor
 public class WifiController implements DeviceController {
+    private static final Logger LOG = Log.getLogger(WifiController.class);
+
     @Override
     public void powerOn(String deviceName) {
-        System.out.println("[WiFi] " + deviceName + " → POWER ON");
+        LOG.info("[WiFi] {} → POWER ON", deviceName);
     }
 
     @Override
     public void powerOff(String deviceName) {
-        System.out.println("[WiFi] " + deviceName + " → POWER OFF");
+        LOG.info("[WiFi] {} → POWER OFF", deviceName);
     }
 
     @Override
     public void send(String deviceName, String payload) {
-        System.out.println("[WiFi] " + deviceName + " → CMD {" + payload + "}");
+        LOG.info("[WiFi] {} → CMD {{}}", deviceName, payload);
+    }
+
+    //typed commands go out as CommandCodec frames; the text is only logged alongside
+    @Override
+    public void send(String deviceName, Command command) {
+        byte[] frame = CommandCodec.encode(command);
+        LOG.info("[WiFi] {} → CMD {{}} [{}]", deviceName, command.payload(), CommandCodec.hex(frame));
+    }
+
+    //one frame carrying every command of the batch
+    @Override
+    public void sendBatch(String deviceName, List<Command> commands) {
+        byte[] frame = CommandCodec.encode(commands);
+        LOG.info("[WiFi] {} → BATCH {} cmds [{}]", deviceName, commands.size(), CommandCodec.hex(frame));
     }
 }
 
@@ -0,0 +1,187 @@
+package smarthome.decorators;
+
+import smarthome.controllers.DeviceController;
+import smarthome.devices.Device;
+import smarthome.devices.StateChangeListener;
+import smarthome.devices.StatusSink;
+import smarthome.metrics.LatencyHistogram;
+import smarthome.metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.Map;
+
+//flat form of a decorator stack: the hooks of every layer run in one loop around the core device,
+//instead of one virtual operate() call per layer
+//behaves like the nested stack: before hooks outer to inner, after hooks inner to outer
+public final class CompiledDevice implements Device {
+    private final DecoratorChain chain;
+    private final Device core;
+    private final DeviceDecorator[] layers;
+    //null unless instrumented; one histogram per layer, each hook call is one sample
+    private final LatencyHistogram[] hookTimings;
+    private final LatencyHistogram coreTiming;
+
+    CompiledDevice(DecoratorChain chain) {
+        this(chain, null, null);
+    }
+
+    private CompiledDevice(DecoratorChain chain, MetricsRegistry registry, String deviceId) {
+        for (DeviceDecorator layer : chain.layers()) {
+            if (!layer.usesHooksOnly()) {
+                throw new IllegalStateException(layer.getClass().getSimpleName()
+                    + " overrides operate()/turnOff() and cannot be compiled");
+            }
+        }
+        this.chain = chain;
+        this.core = chain.core();
+        this.layers = chain.layers().toArray(new DeviceDecorator[0]);
+        if (registry == null) {
+            this.hookTimings = null;
+            this.coreTiming = null;
+        } else {
+            this.hookTimings = new LatencyHistogram[layers.length];
+            for (int i = 0; i < layers.length; i++) {
+                hookTimings[i] = registry.histogram("decorator." + layers[i].getClass().getSimpleName() + ".hook");
+            }
+            this.coreTiming = registry.histogram("device." + deviceId + ".core");
+        }
+    }
+
+    //same pipeline, but each layer's hooks and the core device call are timed separately,
+    //which shows the overhead every decorator adds; core time goes to device.<deviceId>.core
+    public CompiledDevice instrument(MetricsRegistry registry, String deviceId) {
+        if (registry == null) {
+            throw new IllegalArgumentException("MetricsRegistry cannot be null");
+        }
+        if (deviceId == null || deviceId.isBlank()) {
+            throw new IllegalArgumentException("Device id cannot be empty");
+        }
+        return new CompiledDevice(chain, registry, deviceId);
+    }
+
+    @Override
+    public void operate() {
+        int entered = 0;
+        try {
+            for (; entered < layers.length; entered++) {
+                before(entered);
+            }
+            if (coreTiming == null) {
+                core.operate();
+            } else {
+                coreTiming.time(core::operate);
+            }
+        } catch (RuntimeException ex) {
+            for (int i = entered - 1; i >= 0; i--) {
+                layers[i].onOperateFailure(ex);
+            }
+            throw ex;
+        }
+        int i = layers.length - 1;
+        try {
+            for (; i >= 0; i--) {
+                after(i);
+            }
+        } catch (RuntimeException ex) {
+            for (int j = i - 1; j >= 0; j--) {
+                layers[j].onOperateFailure(ex);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void turnOff() {
+        int entered = 0;
+        try {
+            for (; entered < layers.length; entered++) {
+                layers[entered].beforeTurnOff();
+            }
+            core.turnOff();
+        } catch (RuntimeException ex) {
+            for (int i = entered - 1; i >= 0; i--) {
+                layers[i].onTurnOffFailure(ex);
+            }
+            throw ex;
+        }
+        int i = layers.length - 1;
+        try {
+            for (; i >= 0; i--) {
+                layers[i].afterTurnOff();
+            }
+        } catch (RuntimeException ex) {
+            for (int j = i - 1; j >= 0; j--) {
+                layers[j].onTurnOffFailure(ex);
+            }
+            throw ex;
+        }
+    }
+
+    private void before(int layer) {
+        if (hookTimings == null) {
+            layers[layer].beforeOperate();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            layers[layer].beforeOperate();
+        } finally {
+            hookTimings[layer].record(System.nanoTime() - start);
+        }
+    }
+
+    private void after(int layer) {
+        if (hookTimings == null) {
+            layers[layer].afterOperate();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            layers[layer].afterOperate();
+        } finally {
+            hookTimings[layer].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return core.getName();
+    }
+
+    @Override
+    public DeviceController getController() {
+        return core.getController();
+    }
+
+    @Override
+    public void addStateChangeListener(StateChangeListener listener) {
+        core.addStateChangeListener(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        core.removeStateChangeListener(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        if (!chain.flatStatus()) {
+            layers[0].writeStatus(sink);
+            return;
+        }
+        core.writeStatus(sink);
+        List<String> names = chain.names();
+        for (int i = 0; i < names.size(); i++) {
+            sink.decorator(names.get(i));
+        }
+    }
+
+    @Override
+    public Map<String, Object> status() {
+        return chain.flatStatus() ? Device.super.status() : layers[0].status();
+    }
+
+    public DecoratorChain chain() {
+        return chain;
+    }
+}
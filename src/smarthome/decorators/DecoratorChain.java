@@ -0,0 +1,99 @@
+package smarthome.decorators;
+
+import smarthome.devices.Device;
+import smarthome.devices.StatusSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//immutable description of a decorated device, computed once when the decorator is created
+//layers are ordered outermost first, decorator names innermost first (the order used by status())
+public final class DecoratorChain {
+    private final Device core;
+    private final List<DeviceDecorator> layers;
+    private final List<String> names;
+    private final boolean flatStatus;
+
+    private DecoratorChain(Device core, List<DeviceDecorator> layers, List<String> names, boolean flatStatus) {
+        this.core = core;
+        this.layers = layers;
+        this.names = names;
+        this.flatStatus = flatStatus;
+    }
+
+    static DecoratorChain wrap(DeviceDecorator outer, Device inner) {
+        Device core = inner;
+        List<DeviceDecorator> layers = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        boolean flatStatus = !overridesStatus(outer, DeviceDecorator.class);
+        layers.add(outer);
+        if (inner instanceof DeviceDecorator decorated) {
+            DecoratorChain innerChain = decorated.chain();
+            core = innerChain.core;
+            layers.addAll(innerChain.layers);
+            names.addAll(innerChain.names);
+            flatStatus &= innerChain.flatStatus;
+        } else {
+            flatStatus &= !overridesStatus(inner, Device.class);
+        }
+        names.add(outer.getClass().getSimpleName());
+        return new DecoratorChain(core, List.copyOf(layers), List.copyOf(names), flatStatus);
+    }
+
+    public static DecoratorChain of(Device device) {
+        if (device instanceof DeviceDecorator decorated) {
+            return decorated.chain();
+        }
+        return new DecoratorChain(device, List.of(), List.of(), !overridesStatus(device, Device.class));
+    }
+
+    public Device core() {
+        return core;
+    }
+
+    public List<DeviceDecorator> layers() {
+        return layers;
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public int depth() {
+        return layers.size();
+    }
+
+    //true when no layer changes writeStatus()/status(): the core's fields plus the names are the whole status
+    public boolean flatStatus() {
+        return flatStatus;
+    }
+
+    //status() built by the device itself rather than collected from writeStatus()
+    static boolean overridesStatusMap(Device device) {
+        try {
+            Class<?> declaring = device.getClass().getMethod("status").getDeclaringClass();
+            return declaring != Device.class && declaring != DeviceDecorator.class && declaring != CompiledDevice.class;
+        } catch (NoSuchMethodException ex) {
+            return true;
+        }
+    }
+
+    //base is Device for core devices and DeviceDecorator for layers
+    private static boolean overridesStatus(Device device, Class<?> base) {
+        if (overridesStatusMap(device)) {
+            return true;
+        }
+        try {
+            //core devices implement writeStatus themselves, layers are expected to inherit it
+            return base == DeviceDecorator.class
+                && device.getClass().getMethod("writeStatus", StatusSink.class).getDeclaringClass() != DeviceDecorator.class;
+        } catch (NoSuchMethodException ex) {
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return core.getName() + names;
+    }
+}
@@ -1,28 +1,78 @@
 package smarthome.decorators;
 
+import smarthome.controllers.DeviceController;
 import smarthome.devices.Device;
+import smarthome.devices.StateChangeListener;
+import smarthome.devices.StatusSink;
+
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+//decorators add behaviour through the before/after hooks below,
+//which lets a whole stack be flattened into a CompiledDevice
 public abstract class DeviceDecorator implements Device {
     protected final Device device;
+    private final DecoratorChain chain;
 
     public DeviceDecorator(Device device) {
         if (device == null) {
             throw new IllegalArgumentException("Device cannot be null");
         }
         this.device = device;
+        this.chain = DecoratorChain.wrap(this, device);
+        List<DeviceDecorator> layers = chain.layers();
+        for (int i = 1; i < layers.size(); i++) {
+            layers.get(i).wrappedBy(this);
+        }
+    }
+
+    //called on every inner layer when a new outermost layer is built around it
+    //the outer layer is not fully constructed yet, only keep the reference
+    protected void wrappedBy(DeviceDecorator outer) {
+    }
+
+    protected void beforeOperate() {
+    }
+
+    protected void afterOperate() {
+    }
+
+    protected void onOperateFailure(RuntimeException ex) {
+    }
+
+    protected void beforeTurnOff() {
+    }
+
+    protected void afterTurnOff() {
+    }
+
+    protected void onTurnOffFailure(RuntimeException ex) {
     }
 
     @Override
     public void operate() {
-        device.operate();
+        beforeOperate();
+        try {
+            device.operate();
+        } catch (RuntimeException ex) {
+            onOperateFailure(ex);
+            throw ex;
+        }
+        afterOperate();
     }
 
     @Override
     public void turnOff() {
-        device.turnOff();
+        beforeTurnOff();
+        try {
+            device.turnOff();
+        } catch (RuntimeException ex) {
+            onTurnOffFailure(ex);
+            throw ex;
+        }
+        afterTurnOff();
     }
 
     @Override
@@ -30,16 +80,72 @@ public abstract class DeviceDecorator implements Device {
         return device.getName();
     }
 
+    @Override
+    public DeviceController getController() {
+        return device.getController();
+    }
+
+    @Override
+    public void addStateChangeListener(StateChangeListener listener) {
+        device.addStateChangeListener(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        device.removeStateChangeListener(listener);
+    }
+
+    //flat loop over the precomputed chain instead of recursing through every layer,
+    //unless some layer below reports its status itself, then each layer asks the one it wraps
+    @Override
+    public void writeStatus(StatusSink sink) {
+        if (!chain.flatStatus()) {
+            device.writeStatus(sink);
+            sink.decorator(getClass().getSimpleName());
+            return;
+        }
+        chain.core().writeStatus(sink);
+        List<String> names = chain.names();
+        for (int i = 0; i < names.size(); i++) {
+            sink.decorator(names.get(i));
+        }
+    }
+
+    //a wrapped device that builds its own status() map is asked for it, this layer adds its name;
+    //otherwise the map is collected from writeStatus()
+    //such a map override only shows here, writeStatus() sinks cannot carry it
     @Override
     public Map<String, Object> status() {
-        var base = new java.util.HashMap<String,Object>(device.status());
+        if (chain.flatStatus() || !DecoratorChain.overridesStatusMap(device)) {
+            return Device.super.status();
+        }
+        Map<String, Object> status = new HashMap<>(device.status());
         List<String> decorators = new ArrayList<>();
-        Object existing = base.get("decorators");
-        if (existing instanceof java.util.List<?> raw) {
-            for (Object x : raw) decorators.add(String.valueOf(x));
+        if (status.get("decorators") instanceof List<?> inner) {
+            for (Object name : inner) {
+                decorators.add(String.valueOf(name));
+            }
         }
         decorators.add(getClass().getSimpleName());
-        base.put("decorators", decorators);
-        return base;
+        status.put("decorators", decorators);
+        return status;
+    }
+
+    public DecoratorChain chain() {
+        return chain;
+    }
+
+    public CompiledDevice compile() {
+        return new CompiledDevice(chain);
+    }
+
+    boolean usesHooksOnly() {
+        try {
+            Class<?> type = getClass();
+            return type.getMethod("operate").getDeclaringClass() == DeviceDecorator.class
+                && type.getMethod("turnOff").getDeclaringClass() == DeviceDecorator.class;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
     }
 }
@@ -1,17 +1,18 @@
 package smarthome.decorators;
 
 import smarthome.devices.Device;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
 
 public class EnergySavingDecorator extends DeviceDecorator {
+    private static final Logger LOG = Log.getLogger(EnergySavingDecorator.class);
 
     public EnergySavingDecorator(Device device) {
         super(device);
     }
 
     @Override
-    public void operate() {
-        System.out.println("[EnergySaving] Optimizing power for " + getName());
-        device.operate();
+    protected void beforeOperate() {
+        LOG.info("[EnergySaving] Optimizing power for {}", getName());
     }
 }
-
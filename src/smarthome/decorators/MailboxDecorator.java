@@ -0,0 +1,90 @@
+package smarthome.decorators;
+
+import smarthome.devices.Device;
+import smarthome.mailbox.DeviceMailbox;
+import smarthome.mailbox.MailboxSystem;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+//routes operate()/turnOff() through the device's mailbox, so scenes, schedulers and voice
+//commands that share this decorator reach the device one at a time and in order
+//operate()/turnOff() wait up to the reply timeout for the command to run and rethrow its failure,
+//so scenes see it; a command still queued when the wait times out is cancelled and skipped
+//operateAsync()/turnOffAsync() return the future instead
+//a full mailbox blocks for up to the offer timeout, then fails
+public class MailboxDecorator extends DeviceDecorator {
+    public static final Duration DEFAULT_OFFER_TIMEOUT = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_REPLY_TIMEOUT = Duration.ofSeconds(5);
+
+    private final DeviceMailbox<Device> mailbox;
+    private final Duration offerTimeout;
+    private final Duration replyTimeout;
+
+    public MailboxDecorator(Device device, MailboxSystem mailboxes) {
+        this(device, mailboxes, DEFAULT_OFFER_TIMEOUT, DEFAULT_REPLY_TIMEOUT);
+    }
+
+    public MailboxDecorator(Device device, MailboxSystem mailboxes, Duration offerTimeout, Duration replyTimeout) {
+        super(device);
+        if (mailboxes == null || offerTimeout == null || replyTimeout == null) {
+            throw new IllegalArgumentException("Mailboxes and timeouts cannot be null");
+        }
+        this.mailbox = mailboxes.mailboxFor(device);
+        this.offerTimeout = offerTimeout;
+        this.replyTimeout = replyTimeout;
+    }
+
+    @Override
+    public void operate() {
+        await(post(Device::operate));
+    }
+
+    @Override
+    public void turnOff() {
+        await(post(Device::turnOff));
+    }
+
+    public CompletableFuture<Void> operateAsync() {
+        return post(Device::operate);
+    }
+
+    public CompletableFuture<Void> turnOffAsync() {
+        return post(Device::turnOff);
+    }
+
+    public DeviceMailbox<Device> getMailbox() {
+        return mailbox;
+    }
+
+    private CompletableFuture<Void> post(Consumer<Device> command) {
+        try {
+            return mailbox.submit(command, offerTimeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing command for " + getName(), ex);
+        }
+    }
+
+    private void await(CompletableFuture<Void> done) {
+        try {
+            done.get(replyTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            done.cancel(false);
+            throw new IllegalStateException("No reply from " + getName() + " within " + replyTimeout, ex);
+        } catch (InterruptedException ex) {
+            done.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + getName(), ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
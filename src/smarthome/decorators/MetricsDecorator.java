@@ -0,0 +1,67 @@
+package smarthome.decorators;
+
+import smarthome.devices.Device;
+import smarthome.metrics.Counter;
+import smarthome.metrics.LatencyHistogram;
+import smarthome.metrics.MetricsRegistry;
+
+//times operate() and turnOff() of everything below this layer
+//device.<id>.operate, device.<id>.turnOff and device.<id>.failures
+//id is chosen by the caller (registry key or id); getName() is the device type and not unique
+//built on the hooks only, so it still compiles into a CompiledDevice
+public class MetricsDecorator extends DeviceDecorator {
+    private static final int OPERATE = 0;
+    private static final int TURN_OFF = 1;
+
+    //start times per thread, one slot per method, so a turnOff() run inside operate() keeps operate's start
+    private final ThreadLocal<long[]> started = ThreadLocal.withInitial(() -> new long[2]);
+    private final LatencyHistogram operate;
+    private final LatencyHistogram turnOff;
+    private final Counter failures;
+
+    public MetricsDecorator(Device device, MetricsRegistry registry, String deviceId) {
+        super(device);
+        if (registry == null) {
+            throw new IllegalArgumentException("MetricsRegistry cannot be null");
+        }
+        if (deviceId == null || deviceId.isBlank()) {
+            throw new IllegalArgumentException("Device id cannot be empty");
+        }
+        String prefix = "device." + deviceId + ".";
+        this.operate = registry.histogram(prefix + "operate");
+        this.turnOff = registry.histogram(prefix + "turnOff");
+        this.failures = registry.counter(prefix + "failures");
+    }
+
+    @Override
+    protected void beforeOperate() {
+        started.get()[OPERATE] = System.nanoTime();
+    }
+
+    @Override
+    protected void afterOperate() {
+        operate.record(System.nanoTime() - started.get()[OPERATE]);
+    }
+
+    @Override
+    protected void onOperateFailure(RuntimeException ex) {
+        operate.record(System.nanoTime() - started.get()[OPERATE]);
+        failures.increment();
+    }
+
+    @Override
+    protected void beforeTurnOff() {
+        started.get()[TURN_OFF] = System.nanoTime();
+    }
+
+    @Override
+    protected void afterTurnOff() {
+        turnOff.record(System.nanoTime() - started.get()[TURN_OFF]);
+    }
+
+    @Override
+    protected void onTurnOffFailure(RuntimeException ex) {
+        turnOff.record(System.nanoTime() - started.get()[TURN_OFF]);
+        failures.increment();
+    }
+}
@@ -1,20 +1,22 @@
 package smarthome.decorators;
 
 import smarthome.devices.Device;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
 
 public class RemoteAccessDecorator extends DeviceDecorator {
+    private static final Logger LOG = Log.getLogger(RemoteAccessDecorator.class);
 
     public RemoteAccessDecorator(Device device) {
         super(device);
     }
 
     @Override
-    public void operate() {
+    protected void beforeOperate() {
         connectFromInternet();
-        device.operate();
     }
 
     public void connectFromInternet() {
-        System.out.println("[Remote] Connected to " + getName() + " via secure tunnel");
+        LOG.info("[Remote] Connected to {} via secure tunnel", getName());
     }
 }
@@ -1,30 +1,111 @@
 package smarthome.decorators;
 
 import smarthome.devices.Device;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+import smarthome.scheduling.TimerTask;
+import smarthome.scheduling.TimerWheel;
 import java.time.LocalTime;
 
+//without a wheel (demo mode) operate() prints the schedule and runs the device at once
+//with a wheel, the device only runs when the daily trigger fires or triggerNow() is called;
+//those runs enter at the outermost layer, so decorators wrapped around this one see them too;
+//the run is marked on the firing thread, so outer layers must pass operate() down on the same thread
 public class SchedulerDecorator extends DeviceDecorator {
+    private static final Logger LOG = Log.getLogger(SchedulerDecorator.class);
+
     private final LocalTime time;
+    private final TimerTask scheduled;
+    //outermost layer around this one, this until something wraps it
+    private volatile Device entry = this;
+    //set while fire() passes a run down from entry; operate() on a thread without it does not run in wheel mode
+    private final ThreadLocal<Boolean> triggered = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
     public SchedulerDecorator(Device device, LocalTime time) {
         super(device);
         this.time = time;
+        this.scheduled = null;
+    }
+
+    //registers a daily trigger with a shared wheel instead of running on operate()
+    //the wheel's owner must start() it, nothing fires before that
+    public SchedulerDecorator(Device device, LocalTime time, TimerWheel wheel) {
+        super(device);
+        if (time == null || wheel == null) {
+            throw new IllegalArgumentException("Time and scheduler cannot be null");
+        }
+        this.time = time;
+        this.scheduled = wheel.scheduleDaily(time, this::runScheduled);
     }
 
     public void triggerNow() {
-        System.out.println("[Scheduler] Triggering " + getName() + " immediately (was scheduled at " + time + ")");
-        device.operate();
+        LOG.info("[Scheduler] Triggering {} immediately (was scheduled at {})", getName(), time);
+        fire();
+    }
+
+    public boolean isScheduled() {
+        return scheduled != null && !scheduled.isCancelled();
+    }
+
+    public void cancel() {
+        if (scheduled != null) {
+            scheduled.cancel();
+            LOG.info("[Scheduler] Cancelled daily run of {} at {}", getName(), time);
+        }
+    }
+
+    public LocalTime getTime() {
+        return time;
     }
 
     @Override
     public void operate() {
-        System.out.println("[Scheduler] " + getName() + " scheduled at " + time + " (demo prints & executes now)");
-        device.operate();
+        if (scheduled != null && !triggered.get()) {
+            LOG.info("[Scheduler] {} runs daily at {}, not on operate()", getName(), time);
+            return;
+        }
+        super.operate();
+    }
+
+    @Override
+    protected void beforeOperate() {
+        //triggered runs were already logged by triggerNow()/runScheduled()
+        if (scheduled == null && !triggered.get()) {
+            LOG.info("[Scheduler] {} scheduled at {} (demo prints & executes now)", getName(), time);
+        }
+    }
+
+    @Override
+    protected void beforeTurnOff() {
+        LOG.info("[Scheduler] Turning off {}", getName());
+    }
+
+    @Override
+    protected void wrappedBy(DeviceDecorator outer) {
+        if (scheduled != null && outer instanceof MailboxDecorator) {
+            throw new IllegalArgumentException("MailboxDecorator must be inside a scheduled SchedulerDecorator, not around it");
+        }
+        entry = outer;
     }
 
+    //demo mode still runs straight through its hooks, so it can be compiled
     @Override
-    public void turnOff() {
-        System.out.println("[Scheduler] Turning off " + getName());
-        device.turnOff();
+    boolean usesHooksOnly() {
+        return scheduled == null;
+    }
+
+    private void runScheduled() {
+        LOG.info("[Scheduler] Running {} (scheduled daily at {})", getName(), time);
+        fire();
+    }
+
+    private void fire() {
+        boolean outer = triggered.get();
+        triggered.set(Boolean.TRUE);
+        try {
+            entry.operate();
+        } finally {
+            triggered.set(outer);
+        }
     }
 }
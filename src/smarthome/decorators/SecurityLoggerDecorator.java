@@ -1,27 +1,48 @@
 package smarthome.decorators;
 
+import smarthome.audit.AuditRecord;
+import smarthome.audit.AuditRecord.Outcome;
+import smarthome.audit.AuditSink;
 import smarthome.devices.Device;
 
 public class SecurityLoggerDecorator extends DeviceDecorator {
+    private final AuditSink audit;
+
     public SecurityLoggerDecorator(Device device) {
+        this(device, AuditSink.console());
+    }
+
+    //e.g. an AsyncAuditSink so device operations never wait on console or disk
+    public SecurityLoggerDecorator(Device device, AuditSink audit) {
         super(device);
+        if (audit == null) {
+            throw new IllegalArgumentException("AuditSink cannot be null");
+        }
+        this.audit = audit;
     }
 
     @Override
-    public void operate() {
-        System.out.println("[SECURITY-LOG] operate() on " + getName());
-        try {
-            device.operate();
-            System.out.println("[SECURITY-LOG] operate() SUCCESS on " + getName());
-        } catch (RuntimeException ex) {
-            System.out.println("[SECURITY-LOG] operate() FAIL on " + getName() + " : " + ex.getMessage());
-            throw ex;
-        }
+    protected void beforeOperate() {
+        audit.record(AuditRecord.of(getName(), "operate()", Outcome.ATTEMPT, null));
+    }
+
+    @Override
+    protected void afterOperate() {
+        audit.record(AuditRecord.of(getName(), "operate()", Outcome.SUCCESS, null));
+    }
+
+    @Override
+    protected void onOperateFailure(RuntimeException ex) {
+        audit.record(AuditRecord.of(getName(), "operate()", Outcome.FAIL, ex.getMessage()));
+    }
+
+    @Override
+    protected void beforeTurnOff() {
+        audit.record(AuditRecord.of(getName(), "turnOff()", Outcome.ATTEMPT, null));
     }
 
     @Override
-    public void turnOff() {
-        System.out.println("[SECURITY-LOG] turnOff() on " + getName());
-        device.turnOff();
+    protected void onTurnOffFailure(RuntimeException ex) {
+        audit.record(AuditRecord.of(getName(), "turnOff()", Outcome.FAIL, ex.getMessage()));
     }
 }
@@ -1,17 +1,19 @@
 package smarthome.decorators;
 
 import smarthome.devices.Device;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
 
 public class VoiceControlDecorator extends DeviceDecorator {
+    private static final Logger LOG = Log.getLogger(VoiceControlDecorator.class);
 
     public VoiceControlDecorator(Device device) {
         super(device);
     }
 
     @Override
-    public void operate() {
-        System.out.println("Voice control enabled for " + getName());
-        device.operate();
+    protected void beforeOperate() {
+        LOG.info("Voice control enabled for {}", getName());
     }
 
     public void handleVoice(String phrase) {
@@ -1,17 +1,40 @@
 package smarthome.devices;
 
+import smarthome.controllers.DeviceController;
+import smarthome.logging.Log;
 import java.util.Map;
 //abstraction of Bridge pattern
 //all of the devices are concrete abstractions of this interface
+//devices with state store it and send the matching command in one synchronized method,
+//so after concurrent setters the stored state is the last command that went on the wire
+//the order is always: send, store, notify listeners; a command that throws leaves state and listeners untouched
+//listeners are called after the monitor is released, so they may call back into the device
 
 public interface Device {
     void operate();
 
     default void turnOff() {
-        System.out.println(getName() + " turned OFF.");
+        Log.getLogger(Device.class).info("{} turned OFF.", getName());
     }
 
     String getName();
 
-    Map<String, Object> status();
+    //controller the device talks through, null for devices without hardware
+    default DeviceController getController() {
+        return null;
+    }
+
+    //devices without observable state ignore listeners; decorators pass them to the device they wrap
+    default void addStateChangeListener(StateChangeListener listener) {
+    }
+
+    default void removeStateChangeListener(StateChangeListener listener) {
+    }
+
+    //allocation-free status: writes typed fields into a caller supplied sink
+    void writeStatus(StatusSink sink);
+
+    default Map<String, Object> status() {
+        return MapStatusSink.collect(this);
+    }
 }
@@ -1,11 +1,22 @@
 package smarthome.devices;
 
+import smarthome.controllers.Command;
+import smarthome.controllers.CommandType;
 import smarthome.controllers.DeviceController;
-import java.util.HashMap;
-import java.util.Map;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Light implements Device {
-    private int brightness = 0;
+    private static final Logger LOG = Log.getLogger(Light.class);
+
+    //written under the monitor together with its command, atomic so readers never lock
+    private final AtomicInteger brightness = new AtomicInteger();
+    //power is separate from brightness, on(0) leaves the light powered at 0%
+    private final AtomicBoolean on = new AtomicBoolean();
+    private final StateChangeListeners listeners = new StateChangeListeners();
     private final DeviceController controller;
 
     public Light(DeviceController controller) {
@@ -16,19 +27,62 @@ public class Light implements Device {
     }
 
     public void on() {
-        controller.powerOn(getName());
-        setBrightness(100);
+        on(100);
+    }
+
+    //powers on straight into the given brightness instead of 100% first
+    public void on(int brightness) {
+        try {
+            synchronized (this) {
+                controller.powerOn(getName());
+                on.set(true);
+                listeners.stage(this, StateAttribute.ON, 1);
+                writeBrightness(brightness);
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     public void off() {
-        controller.powerOff(getName());
-        brightness = 0;
+        try {
+            synchronized (this) {
+                controller.powerOff(getName());
+                on.set(false);
+                brightness.set(0);
+                listeners.stage(this, StateAttribute.ON, 0);
+                listeners.stage(this, StateAttribute.BRIGHTNESS, 0);
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     public void setBrightness(int value) {
-        brightness = Math.max(0, Math.min(100, value));
-        controller.send(getName(), "brightness=" + brightness);
-        System.out.println("Light brightness set to " + brightness + "%");
+        try {
+            synchronized (this) {
+                writeBrightness(value);
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    public int getBrightness() {
+        return brightness.get();
+    }
+
+    public boolean isOn() {
+        return on.get();
+    }
+
+    //caller holds the monitor
+    private void writeBrightness(int value) {
+        final int clamped = Math.max(0, Math.min(100, value));
+        controller.send(getName(), Command.of(CommandType.BRIGHTNESS, clamped));
+        brightness.set(clamped);
+        listeners.stage(this, StateAttribute.BRIGHTNESS, clamped);
+        LOG.info("Light brightness set to {}%", clamped);
     }
 
     @Override
@@ -41,17 +95,29 @@ public class Light implements Device {
         off();
     }
 
+    @Override
+    public DeviceController getController() {
+        return controller;
+    }
+
     @Override
     public String getName() {
         return "Light";
     }
 
     @Override
-    public Map<String, Object> status() {
-        Map<String, Object> state = new HashMap<>();
-        state.put("name", getName());
-        state.put("type", "Light");
-        state.put("brightness", brightness);
-        return state;
+    public void addStateChangeListener(StateChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        sink.begin(getName(), "Light");
+        sink.intField("brightness", brightness.get());
     }
 }
@@ -0,0 +1,47 @@
+package smarthome.devices;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//adapter behind Device.status(): collects the sink calls into the classic status map
+public class MapStatusSink implements StatusSink {
+    private final Map<String, Object> state = new HashMap<>();
+    private List<String> decorators;
+
+    public static Map<String, Object> collect(Device device) {
+        MapStatusSink sink = new MapStatusSink();
+        device.writeStatus(sink);
+        return sink.toMap();
+    }
+
+    @Override
+    public void begin(String name, String type) {
+        state.put("name", name);
+        state.put("type", type);
+    }
+
+    @Override
+    public void intField(String key, int value) {
+        state.put(key, value);
+    }
+
+    @Override
+    public void boolField(String key, boolean value) {
+        state.put(key, value);
+    }
+
+    @Override
+    public void decorator(String decoratorName) {
+        if (decorators == null) {
+            decorators = new ArrayList<>();
+            state.put("decorators", decorators);
+        }
+        decorators.add(decoratorName);
+    }
+
+    public Map<String, Object> toMap() {
+        return state;
+    }
+}
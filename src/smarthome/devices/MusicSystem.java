@@ -1,11 +1,18 @@
 package smarthome.devices;
 
+import smarthome.controllers.Command;
+import smarthome.controllers.CommandType;
 import smarthome.controllers.DeviceController;
-import java.util.HashMap;
-import java.util.Map;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MusicSystem implements Device {
-    private int volume = 0;
+    private static final Logger LOG = Log.getLogger(MusicSystem.class);
+
+    private final AtomicInteger volume = new AtomicInteger();
+    private final StateChangeListeners listeners = new StateChangeListeners();
     private final DeviceController controller;
 
     public MusicSystem(DeviceController controller) {
@@ -16,21 +23,47 @@ public class MusicSystem implements Device {
     }
 
     public void play(String playlist) {
-        controller.powerOn(getName());
-        controller.send(getName(), "play='" + playlist + "'");
-        System.out.println("Music is playing: " + playlist);
+        try {
+            synchronized (this) {
+                controller.powerOn(getName());
+                controller.send(getName(), Command.of(CommandType.PLAY, playlist));
+                listeners.stage(this, StateAttribute.ON, 1);
+                LOG.info("Music is playing: {}", playlist);
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     public void stop() {
-        controller.send(getName(), "stop");
-        controller.powerOff(getName());
-        System.out.println("Music stopped");
+        try {
+            synchronized (this) {
+                controller.send(getName(), Command.of(CommandType.STOP));
+                controller.powerOff(getName());
+                listeners.stage(this, StateAttribute.ON, 0);
+                LOG.info("Music stopped");
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     public void setVolume(int value) {
-        volume = Math.max(0, Math.min(100, value));
-        controller.send(getName(), "volume=" + volume);
-        System.out.println("Music volume set to " + volume + "%");
+        try {
+            synchronized (this) {
+                final int clamped = Math.max(0, Math.min(100, value));
+                controller.send(getName(), Command.of(CommandType.VOLUME, clamped));
+                volume.set(clamped);
+                listeners.stage(this, StateAttribute.VOLUME, clamped);
+                LOG.info("Music volume set to {}%", clamped);
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    public int getVolume() {
+        return volume.get();
     }
 
     @Override
@@ -43,17 +76,29 @@ public class MusicSystem implements Device {
         stop();
     }
 
+    @Override
+    public DeviceController getController() {
+        return controller;
+    }
+
     @Override
     public String getName() {
         return "MusicSystem";
     }
 
     @Override
-    public Map<String, Object> status() {
-        Map<String, Object> state = new HashMap<>();
-        state.put("name", getName());
-        state.put("type", "MusicSystem");
-        state.put("volume", volume);
-        return state;
+    public void addStateChangeListener(StateChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        sink.begin(getName(), "MusicSystem");
+        sink.intField("volume", volume.get());
     }
 }
@@ -1,12 +1,19 @@
 package smarthome.devices;
 
+import smarthome.controllers.Command;
+import smarthome.controllers.CommandType;
 import smarthome.controllers.DeviceController;
-import java.util.HashMap;
-import java.util.Map;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RobotVacuum implements Device {
+    private static final Logger LOG = Log.getLogger(RobotVacuum.class);
+
     private final DeviceController controller;
-    private int power = 50;
+    private final AtomicInteger power = new AtomicInteger(50);
+    private final StateChangeListeners listeners = new StateChangeListeners();
 
     public RobotVacuum(DeviceController controller) {
         if (controller == null) {
@@ -16,28 +23,62 @@ public class RobotVacuum implements Device {
     }
 
     public void startCleaning(String area) {
-        if (power <= 10) {
-            System.out.println("RobotVacuum battery low, docking...");
-            dock();
-        }
-        else {
-            controller.powerOn(getName());
-            controller.send(getName(), "clean=\"" + area + "\"");
-            System.out.println("RobotVacuum started cleaning: " + area);
-            power = Math.max(0, power - 10);
+        try {
+            synchronized (this) {
+                //check and decrement under the monitor so two callers cannot both spend the last charge
+                int current = power.get();
+                if (current <= 10) {
+                    LOG.info("RobotVacuum battery low, docking...");
+                    writeDock();
+                } else {
+                    int remaining = Math.max(0, current - 10);
+                    controller.powerOn(getName());
+                    listeners.stage(this, StateAttribute.ON, 1);
+                    controller.send(getName(), Command.of(CommandType.CLEAN, area));
+                    power.set(remaining);
+                    listeners.stage(this, StateAttribute.POWER, remaining);
+                    LOG.info("RobotVacuum started cleaning: {}", area);
+                }
+            }
+        } finally {
+            listeners.deliver();
         }
     }
 
     public void setCharging(int level) {
-        power = Math.max(0, Math.min(100, power + level));
-        controller.send(getName(), "power=" + power);
-        System.out.println("RobotVacuum power set to " + power + "%");
+        try {
+            synchronized (this) {
+                final int charged = Math.max(0, Math.min(100, power.get() + level));
+                controller.send(getName(), Command.of(CommandType.POWER, charged));
+                power.set(charged);
+                listeners.stage(this, StateAttribute.POWER, charged);
+                LOG.info("RobotVacuum power set to {}%", charged);
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    public int getPower() {
+        return power.get();
     }
 
     public void dock() {
-        controller.send(getName(), "dock");
+        try {
+            synchronized (this) {
+                writeDock();
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    //caller holds the monitor
+    private void writeDock() {
+        controller.send(getName(), Command.of(CommandType.DOCK));
         controller.powerOff(getName());
-        System.out.println("RobotVacuum docked");
+        listeners.stage(this, StateAttribute.ON, 0);
+        LOG.info("RobotVacuum docked");
     }
 
     @Override
@@ -50,17 +91,29 @@ public class RobotVacuum implements Device {
         dock();
     }
 
+    @Override
+    public DeviceController getController() {
+        return controller;
+    }
+
     @Override
     public String getName() {
         return "RobotVacuum";
     }
 
     @Override
-    public Map<String, Object> status() {
-        Map<String, Object> state = new HashMap<>();
-        state.put("name", getName());
-        state.put("type", "RobotVacuum");
-        state.put("power", power);
-        return state;
+    public void addStateChangeListener(StateChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        sink.begin(getName(), "RobotVacuum");
+        sink.intField("power", power.get());
     }
 }
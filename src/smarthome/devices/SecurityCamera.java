@@ -1,11 +1,17 @@
 package smarthome.devices;
 
+import smarthome.controllers.Command;
+import smarthome.controllers.CommandType;
 import smarthome.controllers.DeviceController;
-import java.util.HashMap;
-import java.util.Map;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
 
 public class SecurityCamera implements Device {
-    private boolean armed = false;
+    private static final Logger LOG = Log.getLogger(SecurityCamera.class);
+
+    //plain writes only, volatile is enough for other threads to see them
+    private volatile boolean armed = false;
+    private final StateChangeListeners listeners = new StateChangeListeners();
     private final DeviceController controller;
 
     public SecurityCamera(DeviceController controller) {
@@ -16,17 +22,37 @@ public class SecurityCamera implements Device {
     }
 
     public void arm() {
-        controller.powerOn(getName());
-        controller.send(getName(), "armed=true");
-        armed = true;
-        System.out.println("Security camera ARMED");
+        try {
+            synchronized (this) {
+                controller.powerOn(getName());
+                listeners.stage(this, StateAttribute.ON, 1);
+                controller.send(getName(), Command.of(CommandType.ARMED, true));
+                armed = true;
+                listeners.stage(this, StateAttribute.ARMED, 1);
+                LOG.info("Security camera ARMED");
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     public void disarm() {
-        controller.send(getName(), "armed=false");
-        controller.powerOff(getName());
-        armed = false;
-        System.out.println("Security camera DISARMED");
+        try {
+            synchronized (this) {
+                controller.send(getName(), Command.of(CommandType.ARMED, false));
+                controller.powerOff(getName());
+                armed = false;
+                listeners.stage(this, StateAttribute.ARMED, 0);
+                listeners.stage(this, StateAttribute.ON, 0);
+                LOG.info("Security camera DISARMED");
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    public boolean isArmed() {
+        return armed;
     }
 
     @Override
@@ -39,17 +65,29 @@ public class SecurityCamera implements Device {
         disarm();
     }
 
+    @Override
+    public DeviceController getController() {
+        return controller;
+    }
+
     @Override
     public String getName() {
         return "SecurityCamera";
     }
 
     @Override
-    public Map<String, Object> status() {
-        Map<String, Object> state = new HashMap<>();
-        state.put("name", getName());
-        state.put("type", "SecurityCamera");
-        state.put("armed", armed);
-        return state;
+    public void addStateChangeListener(StateChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        sink.begin(getName(), "SecurityCamera");
+        sink.boolField("armed", armed);
     }
 }
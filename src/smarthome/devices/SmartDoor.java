@@ -1,12 +1,18 @@
 package smarthome.devices;
 
+import smarthome.controllers.Command;
+import smarthome.controllers.CommandType;
 import smarthome.controllers.DeviceController;
-import java.util.HashMap;
-import java.util.Map;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
 
 public class SmartDoor implements Device {
+    private static final Logger LOG = Log.getLogger(SmartDoor.class);
+
     private final DeviceController controller;
-    private boolean locked = true;
+    //plain writes only, volatile is enough for other threads to see them
+    private volatile boolean locked = true;
+    private final StateChangeListeners listeners = new StateChangeListeners();
 
     public SmartDoor(DeviceController controller) {
         if (controller == null) {
@@ -16,17 +22,37 @@ public class SmartDoor implements Device {
     }
 
     public void lock() {
-        controller.powerOn(getName());
-        controller.send(getName(), "locked=true");
-        locked = true;
-        System.out.println("SmartDoor LOCKED");
+        try {
+            synchronized (this) {
+                controller.powerOn(getName());
+                listeners.stage(this, StateAttribute.ON, 1);
+                controller.send(getName(), Command.of(CommandType.LOCKED, true));
+                locked = true;
+                listeners.stage(this, StateAttribute.LOCKED, 1);
+                LOG.info("SmartDoor LOCKED");
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     public void unlock() {
-        controller.powerOn(getName());
-        controller.send(getName(), "locked=false");
-        locked = false;
-        System.out.println("SmartDoor UNLOCKED");
+        try {
+            synchronized (this) {
+                controller.powerOn(getName());
+                listeners.stage(this, StateAttribute.ON, 1);
+                controller.send(getName(), Command.of(CommandType.LOCKED, false));
+                locked = false;
+                listeners.stage(this, StateAttribute.LOCKED, 0);
+                LOG.info("SmartDoor UNLOCKED");
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    public boolean isLocked() {
+        return locked;
     }
 
     @Override
@@ -39,17 +65,29 @@ public class SmartDoor implements Device {
         lock();
     }
 
+    @Override
+    public DeviceController getController() {
+        return controller;
+    }
+
     @Override
     public String getName() {
         return "SmartDoor";
     }
 
     @Override
-    public Map<String, Object> status() {
-        Map<String, Object> state = new HashMap<>();
-        state.put("name", getName());
-        state.put("type", "SmartDoor");
-        state.put("locked", locked);
-        return state;
+    public void addStateChangeListener(StateChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        sink.begin(getName(), "SmartDoor");
+        sink.boolField("locked", locked);
     }
 }
@@ -1,12 +1,16 @@
 package smarthome.devices;
 
+import smarthome.controllers.Command;
+import smarthome.controllers.CommandType;
 import smarthome.controllers.DeviceController;
-
-import java.util.HashMap;
-import java.util.Map;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
 
 public class SmartMirror implements Device {
+    private static final Logger LOG = Log.getLogger(SmartMirror.class);
+
     private final DeviceController controller;
+    private final StateChangeListeners listeners = new StateChangeListeners();
 
     public SmartMirror(DeviceController controller) {
         if (controller == null) {
@@ -16,9 +20,16 @@ public class SmartMirror implements Device {
     }
 
     public void display(String text) {
-        controller.powerOn(getName());
-        controller.send(getName(), "display=\"" + text + "\"");
-        System.out.println("SmartMirror shows: " + text);
+        try {
+            synchronized (this) {
+                controller.powerOn(getName());
+                controller.send(getName(), Command.of(CommandType.DISPLAY, text));
+                listeners.stage(this, StateAttribute.ON, 1);
+                LOG.info("SmartMirror shows: {}", text);
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     @Override
@@ -28,8 +39,20 @@ public class SmartMirror implements Device {
 
     @Override
     public void turnOff() {
-        controller.powerOff(getName());
-        System.out.println("SmartMirror turned off");
+        try {
+            synchronized (this) {
+                controller.powerOff(getName());
+                listeners.stage(this, StateAttribute.ON, 0);
+                LOG.info("SmartMirror turned off");
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    @Override
+    public DeviceController getController() {
+        return controller;
     }
 
     @Override
@@ -38,10 +61,17 @@ public class SmartMirror implements Device {
     }
 
     @Override
-    public Map<String, Object> status() {
-        Map<String, Object> state = new HashMap<>();
-        state.put("name", getName());
-        state.put("type", "SmartMirror");
-        return state;
+    public void addStateChangeListener(StateChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        sink.begin(getName(), "SmartMirror");
     }
 }
\ No newline at end of file
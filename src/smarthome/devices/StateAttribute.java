@@ -0,0 +1,30 @@
+package smarthome.devices;
+
+//device state that can change at runtime; key() matches the status() field name,
+//except ON, which is sent with every power on/off command and is not part of status()
+public enum StateAttribute {
+    BRIGHTNESS("brightness", false),
+    TARGET("target", false),
+    VOLUME("volume", false),
+    POWER("power", false),
+    ARMED("armed", true),
+    LOCKED("locked", true),
+    ON("on", true);
+
+    private final String key;
+    private final boolean bool;
+
+    StateAttribute(String key, boolean bool) {
+        this.key = key;
+        this.bool = bool;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    //boolean attributes are passed around as 0/1
+    public boolean isBoolean() {
+        return bool;
+    }
+}
@@ -0,0 +1,10 @@
+package smarthome.devices;
+
+//told about every state write of a device, after the new value is stored
+//called on the thread that changed the state, so implementations must be quick
+@FunctionalInterface
+public interface StateChangeListener {
+    StateChangeListener NONE = (device, attribute, value) -> { };
+
+    void onStateChange(Device device, StateAttribute attribute, int value);
+}
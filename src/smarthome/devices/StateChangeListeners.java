@@ -0,0 +1,92 @@
+package smarthome.devices;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//the listeners of one device; add/remove copy the array, firing only reads it,
+//so a device without listeners pays a couple of volatile reads per state write
+//devices stage() changes while holding their monitor and deliver() them after releasing it:
+//listeners never run under the device lock, yet see the changes in the order they were made
+public final class StateChangeListeners implements StateChangeListener {
+    private static final StateChangeListener[] EMPTY = new StateChangeListener[0];
+
+    private volatile StateChangeListener[] listeners = EMPTY;
+    private final Queue<Change> staged = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean delivering = new AtomicBoolean();
+
+    //a listener that is already registered is not added twice
+    public synchronized void add(StateChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("StateChangeListener cannot be null");
+        }
+        StateChangeListener[] current = listeners;
+        if (indexOf(current, listener) >= 0) {
+            return;
+        }
+        StateChangeListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        listeners = next;
+    }
+
+    public synchronized boolean remove(StateChangeListener listener) {
+        StateChangeListener[] current = listeners;
+        int index = indexOf(current, listener);
+        if (index < 0) {
+            return false;
+        }
+        StateChangeListener[] next = new StateChangeListener[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, next.length - index);
+        listeners = next;
+        return true;
+    }
+
+    public int size() {
+        return listeners.length;
+    }
+
+    //called under the device monitor, so staged changes keep the order of the writes
+    public void stage(Device device, StateAttribute attribute, int value) {
+        if (listeners.length > 0) {
+            staged.add(new Change(device, attribute, value));
+        }
+    }
+
+    //called after the device monitor is released, in a finally block so changes staged before a failed
+    //command still go out; one thread delivers at a time, and a caller that finds another thread
+    //delivering leaves its changes to that thread instead of waiting for it
+    public void deliver() {
+        while (!staged.isEmpty() && delivering.compareAndSet(false, true)) {
+            try {
+                Change change;
+                while ((change = staged.poll()) != null) {
+                    onStateChange(change.device(), change.attribute(), change.value());
+                }
+            } finally {
+                delivering.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void onStateChange(Device device, StateAttribute attribute, int value) {
+        for (StateChangeListener listener : listeners) {
+            listener.onStateChange(device, attribute, value);
+        }
+    }
+
+    //identity, listeners rarely define equals()
+    private static int indexOf(StateChangeListener[] array, StateChangeListener listener) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == listener) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private record Change(Device device, StateAttribute attribute, int value) {
+    }
+}
@@ -0,0 +1,13 @@
+package smarthome.devices;
+
+//receives a device status field by field, so callers can reuse one sink for every poll
+//the core device calls begin() and its fields, decorators then report themselves from inner to outer
+public interface StatusSink {
+    void begin(String name, String type);
+
+    void intField(String key, int value);
+
+    void boolField(String key, boolean value);
+
+    void decorator(String decoratorName);
+}
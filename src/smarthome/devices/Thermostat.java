@@ -1,16 +1,25 @@
 package smarthome.devices;
 
+import smarthome.controllers.Command;
+import smarthome.controllers.CommandType;
 import smarthome.controllers.DeviceController;
-import java.util.HashMap;
-import java.util.Map;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Thermostat implements Device {
+    private static final Logger LOG = Log.getLogger(Thermostat.class);
+
     private static final int MIN_TEMP = -10;
     private static final int MAX_TEMP = 40;
     private static final int DEFAULT_TEMP = 20;
     public static final int ECO_TEMP = 18;
 
-    private int target = DEFAULT_TEMP;
+    private final AtomicInteger target = new AtomicInteger(DEFAULT_TEMP);
+    private final AtomicBoolean on = new AtomicBoolean();
+    private final StateChangeListeners listeners = new StateChangeListeners();
     private final DeviceController controller;
 
     public Thermostat(DeviceController controller) {
@@ -21,27 +30,72 @@ public class Thermostat implements Device {
     }
 
     public void setTemperature(int degreesC) {
-        final int clamped = Math.max(MIN_TEMP, Math.min(MAX_TEMP, degreesC));
-        target = clamped;
-        controller.powerOn(getName());
-        controller.send(getName(), "target=" + clamped + "C");
-        System.out.println("Thermostat target set to " + clamped + "°C");
+        try {
+            synchronized (this) {
+                writeTarget(degreesC);
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    public int getTarget() {
+        return target.get();
+    }
+
+    public boolean isOn() {
+        return on.get();
+    }
+
+    public static int clamp(int degreesC) {
+        return Math.max(MIN_TEMP, Math.min(MAX_TEMP, degreesC));
     }
 
     public void ecoMode() {
         setTemperature(ECO_TEMP);
-        System.out.println("Thermostat set to ECO mode");
+        LOG.info("Thermostat set to ECO mode");
     }
 
     @Override
     public void operate() {
-        setTemperature(target);
+        try {
+            synchronized (this) {
+                writeTarget(target.get());
+            }
+        } finally {
+            listeners.deliver();
+        }
     }
 
     @Override
     public void turnOff() {
-        controller.powerOff(getName());
-        System.out.println("Thermostat is off");
+        try {
+            synchronized (this) {
+                controller.powerOff(getName());
+                on.set(false);
+                listeners.stage(this, StateAttribute.ON, 0);
+                LOG.info("Thermostat is off");
+            }
+        } finally {
+            listeners.deliver();
+        }
+    }
+
+    //caller holds the monitor
+    private void writeTarget(int degreesC) {
+        final int clamped = clamp(degreesC);
+        controller.powerOn(getName());
+        on.set(true);
+        listeners.stage(this, StateAttribute.ON, 1);
+        controller.send(getName(), Command.of(CommandType.TARGET, clamped));
+        target.set(clamped);
+        listeners.stage(this, StateAttribute.TARGET, clamped);
+        LOG.info("Thermostat target set to {}°C", clamped);
+    }
+
+    @Override
+    public DeviceController getController() {
+        return controller;
     }
 
     @Override
@@ -50,11 +104,18 @@ public class Thermostat implements Device {
     }
 
     @Override
-    public Map<String, Object> status() {
-        Map<String, Object> state = new HashMap<>();
-        state.put("name", getName());
-        state.put("type", "Thermostat");
-        state.put("target", target);
-        return state;
+    public void addStateChangeListener(StateChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStateChangeListener(StateChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void writeStatus(StatusSink sink) {
+        sink.begin(getName(), "Thermostat");
+        sink.intField("target", target.get());
     }
 }
@@ -0,0 +1,9 @@
+package smarthome.events;
+
+//what the bus does when a subscriber is a full ring behind
+public enum Backpressure {
+    //publishers wait until the subscriber catches up, nothing is lost
+    BLOCK,
+    //publishers never wait; the subscriber skips the events it missed and counts them
+    DROP
+}
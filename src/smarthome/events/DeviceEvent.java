@@ -0,0 +1,56 @@
+package smarthome.events;
+
+import smarthome.devices.Device;
+import smarthome.devices.StateAttribute;
+
+//one state change as seen by a subscriber
+//the instance is reused for the next event, copy what you need before onEvent() returns
+public final class DeviceEvent {
+    private long sequence;
+    private Device device;
+    private StateAttribute attribute;
+    private int value;
+    private long timestampMillis;
+
+    void set(long sequence, Device device, StateAttribute attribute, int value, long timestampMillis) {
+        this.sequence = sequence;
+        this.device = device;
+        this.attribute = attribute;
+        this.value = value;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public Device device() {
+        return device;
+    }
+
+    public StateAttribute attribute() {
+        return attribute;
+    }
+
+    public int intValue() {
+        return value;
+    }
+
+    public boolean boolValue() {
+        return value != 0;
+    }
+
+    //Integer or Boolean depending on the attribute
+    public Object value() {
+        return attribute.isBoolean() ? (Object) (value != 0) : (Object) value;
+    }
+
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + device.getName() + " " + attribute.key() + "=" + value();
+    }
+}
@@ -0,0 +1,221 @@
+package smarthome.events;
+
+import smarthome.devices.Device;
+import smarthome.devices.StateAttribute;
+import smarthome.devices.StateChangeListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+//disruptor-style bus for device state changes
+//events live in a ring of preallocated slots; publishers claim a sequence with a CAS on the cursor,
+//fill the slot and mark it published, so publishing allocates nothing
+//every subscriber reads the ring with its own sequence on its own thread and gets events in batches;
+//BLOCK subscribers hold publishers back when a full ring behind, DROP subscribers skip ahead instead
+//attach(device) adds the bus to the device's StateChangeListeners, next to any listener already there
+//devices publish after releasing their monitor, so a handler may call back into an attached device;
+//a BLOCK handler's own changes never wait for itself: a full ring behind, they overrun it and count as dropped
+public class DeviceEventBus implements StateChangeListener, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    static final int PUBLISHED = 0;
+    static final int NOT_PUBLISHED = 1;
+    static final int OVERRUN = 2;
+
+    //marks a slot whose fields are being written
+    private static final long WRITING = Long.MIN_VALUE;
+    private static final long GATING_PARK_NANOS = 1_000;
+
+    private final int capacity;
+    private final int mask;
+    private final Slot[] slots;
+    //sequence stored in each slot once its fields are complete
+    private final AtomicLongArray published;
+    //next sequence to claim
+    private final AtomicLong cursor = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<Subscription> gating = new CopyOnWriteArrayList<>();
+    //publishers between the closed check and marking their slot published; close() waits for zero
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean closed;
+
+    public DeviceEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DeviceEventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new Slot[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            //as if the previous lap had been published, so the first lap can be claimed
+            published.set(i, i - (long) capacity);
+        }
+    }
+
+    public void attach(Device device) {
+        if (device == null) {
+            throw new IllegalArgumentException("Device cannot be null");
+        }
+        device.addStateChangeListener(this);
+    }
+
+    public void detach(Device device) {
+        device.removeStateChangeListener(this);
+    }
+
+    public Subscription subscribe(String name, DeviceEventHandler handler, Backpressure backpressure) {
+        return subscribe(name, handler, backpressure, DEFAULT_MAX_BATCH);
+    }
+
+    //the subscriber sees events published from now on
+    public Subscription subscribe(String name, DeviceEventHandler handler, Backpressure backpressure, int maxBatch) {
+        if (handler == null || backpressure == null) {
+            throw new IllegalArgumentException("Handler and backpressure cannot be null");
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("maxBatch must be positive");
+        }
+        if (closed) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        Subscription subscription = new Subscription(this, name, handler, backpressure, maxBatch, cursor.get());
+        if (backpressure == Backpressure.BLOCK) {
+            gating.add(subscription);
+        }
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    @Override
+    public void onStateChange(Device device, StateAttribute attribute, int value) {
+        publish(device, attribute, value);
+    }
+
+    //false once the bus is closed
+    public boolean publish(Device device, StateAttribute attribute, int value) {
+        inFlight.incrementAndGet();
+        try {
+            if (closed) {
+                return false;
+            }
+            long sequence = claim();
+            if (sequence < 0) {
+                return false;
+            }
+            write(sequence, device, attribute, value);
+            return true;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    //sequences claimed so far
+    public long cursor() {
+        return cursor.get();
+    }
+
+    public List<Subscription> subscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    //stops publishing, lets every subscriber drain what was published and stops their threads
+    @Override
+    public void close() {
+        closed = true;
+        //publishers that got past the closed check finish first, so subscribers see their events
+        while (inFlight.get() > 0) {
+            LockSupport.parkNanos(GATING_PARK_NANOS);
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.stop();
+        }
+        subscriptions.clear();
+        gating.clear();
+    }
+
+    void remove(Subscription subscription) {
+        gating.remove(subscription);
+        subscriptions.remove(subscription);
+    }
+
+    //copies the event into target; overrun means the slot already holds a later lap
+    int read(long sequence, DeviceEvent target) {
+        int index = (int) (sequence & mask);
+        long seen = published.get(index);
+        if (seen != sequence) {
+            return seen > sequence || (seen == WRITING && cursor.get() - sequence > capacity)
+                ? OVERRUN : NOT_PUBLISHED;
+        }
+        Slot slot = slots[index];
+        target.set(sequence, slot.device, slot.attribute, slot.value, slot.timestampMillis);
+        //slot fields are volatile, so an unchanged marker means nothing was overwritten meanwhile
+        return published.get(index) == sequence ? PUBLISHED : OVERRUN;
+    }
+
+    private void write(long sequence, Device device, StateAttribute attribute, int value) {
+        int index = (int) (sequence & mask);
+        //a slower publisher from the previous lap may still be filling this slot
+        while (published.get(index) != sequence - capacity) {
+            Thread.onSpinWait();
+        }
+        published.set(index, WRITING);
+        Slot slot = slots[index];
+        slot.device = device;
+        slot.attribute = attribute;
+        slot.value = value;
+        slot.timestampMillis = System.currentTimeMillis();
+        published.set(index, sequence);
+    }
+
+    //-1 when the bus closed while waiting for a BLOCK subscriber
+    private long claim() {
+        while (true) {
+            long sequence = cursor.get();
+            long wrapPoint = sequence - capacity;
+            if (wrapPoint >= minGatingSequence(Thread.currentThread())) {
+                if (closed) {
+                    return -1;
+                }
+                LockSupport.parkNanos(GATING_PARK_NANOS);
+                continue;
+            }
+            if (cursor.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    //a subscriber publishing from its own handler would otherwise wait for itself forever
+    private long minGatingSequence(Thread publisher) {
+        long min = Long.MAX_VALUE;
+        for (Subscription subscription : gating) {
+            if (!subscription.runsOn(publisher)) {
+                min = Math.min(min, subscription.next.get());
+            }
+        }
+        return min;
+    }
+
+    private static final class Slot {
+        volatile Device device;
+        volatile StateAttribute attribute;
+        volatile int value;
+        volatile long timestampMillis;
+    }
+}
@@ -0,0 +1,8 @@
+package smarthome.events;
+
+//receives events on the subscription's own thread; endOfBatch marks the last event currently
+//available, a good moment to flush anything buffered
+@FunctionalInterface
+public interface DeviceEventHandler {
+    void onEvent(DeviceEvent event, boolean endOfBatch);
+}
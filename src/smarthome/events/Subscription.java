@@ -0,0 +1,163 @@
+package smarthome.events;
+
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//one subscriber of a DeviceEventBus with its own read sequence and thread
+public final class Subscription {
+    private static final Logger LOG = Log.getLogger(Subscription.class);
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final DeviceEventBus bus;
+    private final String name;
+    private final DeviceEventHandler handler;
+    private final Backpressure backpressure;
+    private final int maxBatch;
+    //next sequence to read; publishers gate on it for BLOCK subscribers
+    final AtomicLong next;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    //two reused events: one is handed out while the next one is being read
+    private DeviceEvent pending = new DeviceEvent();
+    private DeviceEvent reading = new DeviceEvent();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    Subscription(DeviceEventBus bus, String name, DeviceEventHandler handler, Backpressure backpressure,
+                 int maxBatch, long start) {
+        this.bus = bus;
+        this.name = name;
+        this.handler = handler;
+        this.backpressure = backpressure;
+        this.maxBatch = maxBatch;
+        this.next = new AtomicLong(start);
+        this.thread = new Thread(this::loop, "event-bus-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    boolean runsOn(Thread other) {
+        return thread == other;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    public long deliveredCount() {
+        return delivered.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    //events published but not yet delivered
+    public long lag() {
+        return Math.max(0, bus.cursor() - next.get());
+    }
+
+    //delivers what is already published, then stops the thread
+    public void close() {
+        bus.remove(this);
+        stop();
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void loop() {
+        int idle = 0;
+        while (true) {
+            boolean stopping = !running;
+            if (drainBatch() > 0) {
+                idle = 0;
+            } else if (stopping) {
+                return;
+            } else if (++idle < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private int drainBatch() {
+        long sequence = next.get();
+        if (backpressure == Backpressure.DROP) {
+            sequence = skipOverrun(sequence);
+        }
+        boolean hasPending = false;
+        int count = 0;
+        while (count < maxBatch) {
+            int read = bus.read(sequence, reading);
+            if (read == DeviceEventBus.NOT_PUBLISHED) {
+                break;
+            }
+            if (read == DeviceEventBus.OVERRUN) {
+                //slot was reused while we were reading it, only DROP subscribers get here
+                sequence = skipOverrun(sequence);
+                break;
+            }
+            if (hasPending) {
+                deliver(pending, false);
+            }
+            DeviceEvent swap = pending;
+            pending = reading;
+            reading = swap;
+            hasPending = true;
+            sequence++;
+            count++;
+        }
+        if (hasPending) {
+            deliver(pending, true);
+        }
+        next.set(sequence);
+        return count;
+    }
+
+    private long skipOverrun(long sequence) {
+        long oldest = bus.cursor() - bus.capacity();
+        if (sequence < oldest) {
+            dropped.add(oldest - sequence);
+            return oldest;
+        }
+        return sequence;
+    }
+
+    private void deliver(DeviceEvent event, boolean endOfBatch) {
+        try {
+            handler.onEvent(event, endOfBatch);
+            delivered.increment();
+        } catch (RuntimeException ex) {
+            failures.increment();
+            LOG.warn("[EventBus] subscriber {} failed: {}", name, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package smarthome.facade;
+
+//immutable, precompiled form of a SceneDefinition
+//steps are already bound to devices with parsed arguments, in the lanes and order the definition declared,
+//so running the plan only replays the prepared lanes
+public final class CommandPlan {
+    private final Scene scene;
+    private final int commandCount;
+
+    CommandPlan(Scene scene, int commandCount) {
+        this.scene = scene;
+        this.commandCount = commandCount;
+    }
+
+    public String getName() {
+        return scene.getName();
+    }
+
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    public int getLaneCount() {
+        return scene.getLanes().size();
+    }
+
+    public SceneReport run(SceneExecutor executor) {
+        return executor.run(scene);
+    }
+}
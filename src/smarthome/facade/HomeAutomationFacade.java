@@ -1,5 +1,6 @@
 package smarthome.facade;
 
+import smarthome.controllers.BatchingController;
 import smarthome.devices.Device;
 import smarthome.devices.Light;
 import smarthome.devices.MusicSystem;
@@ -8,7 +9,11 @@ import smarthome.devices.SecurityCamera;
 import smarthome.devices.SmartDoor;
 import smarthome.devices.RobotVacuum;
 import smarthome.devices.SmartMirror;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import static java.util.Objects.requireNonNull;
 
 public class HomeAutomationFacade {
@@ -16,6 +21,8 @@ public class HomeAutomationFacade {
     private static final int PARTY_VOLUME = 100;
     private static final int PARTY_TEMP = 22;
     private static final int AWAY_TEMP = 16;
+    private static final int MORNING_TEMP = 21;
+    private static final int MORNING_BRIGHTNESS = 80;
     private static final String PARTY_PLAYLIST = "party_hits";
 
     private final Light light;
@@ -27,16 +34,23 @@ public class HomeAutomationFacade {
     private final SmartDoor door;
     private final RobotVacuum vacuum;
     private final SmartMirror mirror;
+    private final SceneExecutor sceneExecutor;
+    private final SceneCompiler sceneCompiler;
+    private final Map<String, CommandPlan> customScenes = new ConcurrentHashMap<>();
+    //flushed after every scene so no command waits for a later send
+    private final List<BatchingController> batchingControllers = new ArrayList<>();
 
 
      HomeAutomationFacade(Light light, MusicSystem music, Thermostat thermostat,
                                 SecurityCamera camera, List<Device> decoratedDevices,
-                                SmartDoor door, RobotVacuum vacuum, SmartMirror mirror) {
+                                SmartDoor door, RobotVacuum vacuum, SmartMirror mirror,
+                                SceneExecutor sceneExecutor, List<SceneDefinition> sceneDefinitions) {
         requireNonNull(light, "light");
         requireNonNull(music, "music");
         requireNonNull(thermostat, "thermostat");
         requireNonNull(camera, "camera");
         requireNonNull(decoratedDevices, "decoratedDevices");
+        requireNonNull(sceneExecutor, "sceneExecutor");
         this.light = light;
         this.music = music;
         this.thermostat = thermostat;
@@ -45,128 +59,227 @@ public class HomeAutomationFacade {
         this.door = door;
         this.vacuum = vacuum;
         this.mirror = mirror;
+        this.sceneExecutor = sceneExecutor;
+        this.sceneCompiler = new SceneCompiler(light, music, thermostat, camera, door, vacuum, mirror);
+        for (Device device : new Device[] {light, music, thermostat, camera, door, vacuum, mirror}) {
+            if (device != null && device.getController() instanceof BatchingController batching
+                    && !batchingControllers.contains(batching)) {
+                batchingControllers.add(batching);
+            }
+        }
+        for (SceneDefinition definition : sceneDefinitions) {
+            defineScene(definition);
+        }
     }
 
-    public void startPartyMode() {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("  P A R T Y   M O D E   A C T I V A T E D  ");
-        System.out.println("=".repeat(60));
-
-        System.out.println("\n Setting up lighting...");
-        light.on();
-        light.setBrightness(PARTY_BRIGHTNESS);
+    //compiles the definition once; later runs only replay the plan
+    public CommandPlan defineScene(SceneDefinition definition) {
+        requireNonNull(definition, "definition");
+        CommandPlan plan = sceneCompiler.compile(definition);
+        customScenes.put(definition.getName(), plan);
+        return plan;
+    }
 
-        System.out.println("\n Starting party music...");
-        music.setVolume(PARTY_VOLUME);
-        music.play(PARTY_PLAYLIST);
+    public Set<String> getCustomSceneNames() {
+        return Set.copyOf(customScenes.keySet());
+    }
 
-        System.out.println("\n️ Adjusting temperature for comfort...");
-        thermostat.setTemperature(PARTY_TEMP);
+    public SceneReport runScene(String name) {
+        CommandPlan plan = customScenes.get(name);
+        if (plan == null) {
+            throw new IllegalArgumentException("Unknown scene: " + name);
+        }
+        try {
+            return plan.run(sceneExecutor);
+        } finally {
+            flushControllers();
+        }
+    }
 
-        System.out.println("\n Disabling security camera (guests arriving)...");
-        camera.disarm();
+    public SceneReport startPartyMode() {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("  P A R T Y   M O D E   A C T I V A T E D  ");
+        System.out.println("=".repeat(60));
 
+        Scene.Builder scene = Scene.builder("Party mode")
+            .lane(() -> {
+                System.out.println("\n Setting up lighting...");
+                StateReconciler.reconcile(light, "brightness", PARTY_BRIGHTNESS);
+            })
+            .lane(() -> {
+                System.out.println("\n Starting party music...");
+                StateReconciler.reconcile(music, "volume", PARTY_VOLUME);
+                music.play(PARTY_PLAYLIST);
+            })
+            .lane(() -> {
+                System.out.println("\n️ Adjusting temperature for comfort...");
+                StateReconciler.reconcile(thermostat, "target", PARTY_TEMP);
+            });
+
+        //camera must be disarmed before the door opens, so both stay in one lane
+        List<Runnable> entrance = new ArrayList<>();
+        entrance.add(() -> {
+            System.out.println("\n Disabling security camera (guests arriving)...");
+            StateReconciler.reconcile(camera, "armed", false);
+        });
         if (door != null) {
-            System.out.println("\n Unlocking main door for guests...");
-            door.unlock();
+            entrance.add(() -> {
+                System.out.println("\n Unlocking main door for guests...");
+                StateReconciler.reconcile(door, "locked", false);
+            });
         }
+        scene.lane(entrance);
+
         if (mirror != null) {
-            System.out.println("\n Updating smart mirror display...");
-            mirror.display("Party Time! Welcome Everyone! ");
+            scene.lane(() -> {
+                System.out.println("\n Updating smart mirror display...");
+                mirror.display("Party Time! Welcome Everyone! ");
+            });
         }
 
+        SceneReport report = sceneExecutor.run(scene.build());
         System.out.println("\n Party mode setup complete! Let's have fun!");
-        System.out.println("=".repeat(60));
+        return finish(report);
     }
 
-    public void activateNightMode() {
+    public SceneReport activateNightMode() {
         System.out.println("\n" + "=".repeat(60));
         System.out.println("  N I G H T   M O D E   A C T I V A T E D  ");
         System.out.println("=".repeat(60));
 
-        System.out.println("\n Dimming lights for sleep...");
-        light.setBrightness(0);
-        light.off();
-
-        System.out.println("\n Stopping all music...");
-        music.stop();
-
-        System.out.println("\n️ Switching to ECO mode (energy saving)...");
-        thermostat.ecoMode();
-
-        System.out.println("\n Arming security camera for night protection...");
-        camera.arm();
-
+        Scene.Builder scene = Scene.builder("Night mode")
+            .lane(() -> {
+                System.out.println("\n Dimming lights for sleep...");
+                StateReconciler.reconcile(light, "brightness", 0);
+            })
+            .lane(() -> {
+                System.out.println("\n Stopping all music...");
+                music.stop();
+            })
+            .lane(() -> {
+                System.out.println("\n️ Switching to ECO mode (energy saving)...");
+                if (StateReconciler.reconcile(thermostat, "target", Thermostat.ECO_TEMP)) {
+                    System.out.println("Thermostat set to ECO mode");
+                }
+            });
+
+        scene.lane(() -> {
+            System.out.println("\n Arming security camera for night protection...");
+            StateReconciler.reconcile(camera, "armed", true);
+        });
         if (door != null) {
-            System.out.println("\n Locking all doors for security...");
-            door.lock();
+            scene.lane(() -> {
+                System.out.println("\n Locking all doors for security...");
+                StateReconciler.reconcile(door, "locked", true);
+            });
         }
         if (mirror != null) {
-            System.out.println("\n Setting goodnight message...");
-            mirror.display(" Good night! Sweet dreams! ");
+            scene.lane(() -> {
+                System.out.println("\n Setting goodnight message...");
+                mirror.display(" Good night! Sweet dreams! ");
+            });
         }
 
+        SceneReport report = sceneExecutor.run(scene.build());
         System.out.println("\n Night mode activated. Sleep well! ");
-        System.out.println("=".repeat(60));
+        return finish(report);
     }
 
-    public void leaveHome() {
+    public SceneReport leaveHome() {
         System.out.println("\n" + "=".repeat(60));
         System.out.println("  L E A V E   H O M E   M O D E  ");
         System.out.println("=".repeat(60));
 
+        //decorated devices wrap the same hardware as the fields below,
+        //so they are shut down first and the rest of the scene runs afterwards
         System.out.println("\n Shutting down all decorated devices...");
+        Scene.Builder shutdown = Scene.builder("Leave home: shutdown");
         for (Device device : decoratedDevices) {
-            System.out.println("   Turning off: " + device.getName());
-            device.turnOff();
+            shutdown.lane(() -> {
+                System.out.println("   Turning off: " + device.getName());
+                device.turnOff();
+            });
         }
-
-        System.out.println("\n Arming security system...");
-        camera.arm();
-
-        System.out.println("\n️ Setting away temperature (energy saving: " + AWAY_TEMP + "°C)...");
-        thermostat.setTemperature(AWAY_TEMP);
+        SceneReport shutdownReport = sceneExecutor.run(shutdown.build());
+
+        Scene.Builder scene = Scene.builder("Leave home")
+            .lane(() -> {
+                System.out.println("\n Arming security system...");
+                StateReconciler.reconcile(camera, "armed", true);
+            })
+            .lane(() -> {
+                System.out.println("\n️ Setting away temperature (energy saving: " + AWAY_TEMP + "°C)...");
+                StateReconciler.reconcile(thermostat, "target", AWAY_TEMP);
+            });
 
         if (door != null) {
-            System.out.println("\n Locking main door...");
-            door.lock();
+            scene.lane(() -> {
+                System.out.println("\n Locking main door...");
+                StateReconciler.reconcile(door, "locked", true);
+            });
         }
         if (vacuum != null) {
-            System.out.println("\n Starting robot vacuum for cleaning...");
-            vacuum.startCleaning("AllRooms");
-            System.out.println("  ↳ Vacuum will clean while you're away!");
+            scene.lane(() -> {
+                System.out.println("\n Starting robot vacuum for cleaning...");
+                vacuum.startCleaning("AllRooms");
+                System.out.println("  ↳ Vacuum will clean while you're away!");
+            });
         }
 
+        SceneReport report = sceneExecutor.run(scene.build());
         System.out.println("\n Home secured! Safe travels! ");
-        System.out.println("=".repeat(60));
+        return finish(new SceneReport("Leave home", shutdownReport.lanes() + report.lanes(),
+            shutdownReport.elapsed().plus(report.elapsed())));
     }
 
-    public void morningRoutine() {
+    public SceneReport morningRoutine() {
         System.out.println("\n" + "=".repeat(60));
         System.out.println("  M O R N I N G   R O U T I N E  A C T I V A T E D  ");
         System.out.println("=".repeat(60));
 
+        Scene.Builder scene = Scene.builder("Morning routine");
         if (mirror != null) {
-            System.out.println("\n Displaying morning greeting...");
-            mirror.display(" Good morning! Have a great day! ");
+            scene.lane(() -> {
+                System.out.println("\n Displaying morning greeting...");
+                mirror.display(" Good morning! Have a great day! ");
+            });
         }
 
-        System.out.println("\n Playing morning playlist to wake you up...");
-        music.play("morning_vibes");
-
-        System.out.println("\n️ Setting comfortable morning temperature (21°C)...");
-        thermostat.setTemperature(21);
-
-        System.out.println("\n Turning on lights with gentle brightness...");
-        light.on();
-        light.setBrightness(80);
+        scene.lane(() -> {
+                System.out.println("\n Playing morning playlist to wake you up...");
+                music.play("morning_vibes");
+            })
+            .lane(() -> {
+                System.out.println("\n️ Setting comfortable morning temperature (" + MORNING_TEMP + "°C)...");
+                StateReconciler.reconcile(thermostat, "target", MORNING_TEMP);
+            })
+            .lane(() -> {
+                System.out.println("\n Turning on lights with gentle brightness...");
+                StateReconciler.reconcile(light, "brightness", MORNING_BRIGHTNESS);
+            });
 
         if (door != null) {
-            System.out.println("\n Unlocking main door...");
-            door.unlock();
+            scene.lane(() -> {
+                System.out.println("\n Unlocking main door...");
+                StateReconciler.reconcile(door, "locked", false);
+            });
         }
 
+        SceneReport report = sceneExecutor.run(scene.build());
         System.out.println("\n Good morning! Your home is ready for the day! ");
+        return finish(report);
+    }
+
+    private void flushControllers() {
+        for (BatchingController controller : batchingControllers) {
+            controller.flush();
+        }
+    }
+
+    private SceneReport finish(SceneReport report) {
+        flushControllers();
+        System.out.println(" " + report);
         System.out.println("=".repeat(60));
+        return report;
     }
 }
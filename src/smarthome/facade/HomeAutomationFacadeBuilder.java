@@ -14,6 +14,8 @@ public class HomeAutomationFacadeBuilder {
     private SmartDoor door;
     private RobotVacuum vacuum;
     private SmartMirror mirror;
+    private SceneExecutor sceneExecutor = SceneExecutor.sequential();
+    private final List<SceneDefinition> scenes = new ArrayList<>();
 
     public HomeAutomationFacadeBuilder withLight(Light light) {
         this.light = light;
@@ -60,10 +62,25 @@ public class HomeAutomationFacadeBuilder {
         return this;
     }
 
+    public HomeAutomationFacadeBuilder withSceneExecutor(SceneExecutor sceneExecutor) {
+        this.sceneExecutor = sceneExecutor;
+        return this;
+    }
+
+    public HomeAutomationFacadeBuilder withScene(SceneDefinition scene) {
+        this.scenes.add(scene);
+        return this;
+    }
+
+    public HomeAutomationFacadeBuilder withScenes(List<SceneDefinition> scenes) {
+        this.scenes.addAll(scenes);
+        return this;
+    }
+
     public HomeAutomationFacade build() {
         return new HomeAutomationFacade(
             light, music, thermostat, camera, decoratedDevices,
-            door, vacuum, mirror
+            door, vacuum, mirror, sceneExecutor, scenes
         );
     }
 }
@@ -0,0 +1,56 @@
+package smarthome.facade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//a scene is a set of lanes; lanes are independent and may run at the same time,
+//steps inside one lane always run in order (e.g. disarm camera before unlocking the door)
+public final class Scene {
+    private final String name;
+    private final List<List<Runnable>> lanes;
+
+    private Scene(String name, List<List<Runnable>> lanes) {
+        this.name = name;
+        this.lanes = lanes;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<List<Runnable>> getLanes() {
+        return lanes;
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final List<List<Runnable>> lanes = new ArrayList<>();
+
+        private Builder(String name) {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Scene name cannot be empty");
+            }
+            this.name = name;
+        }
+
+        public Builder lane(Runnable... steps) {
+            return lane(Arrays.asList(steps));
+        }
+
+        public Builder lane(List<Runnable> steps) {
+            if (!steps.isEmpty()) {
+                lanes.add(List.copyOf(steps));
+            }
+            return this;
+        }
+
+        public Scene build() {
+            return new Scene(name, List.copyOf(lanes));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package smarthome.facade;
+
+import smarthome.controllers.BatchingController;
+import smarthome.devices.Device;
+import smarthome.devices.Light;
+import smarthome.devices.MusicSystem;
+import smarthome.devices.RobotVacuum;
+import smarthome.devices.SecurityCamera;
+import smarthome.devices.SmartDoor;
+import smarthome.devices.SmartMirror;
+import smarthome.devices.Thermostat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//turns SceneDefinitions into CommandPlans for one set of devices
+//all parsing and validation happens here, once per scene
+//each lane keeps the step order of the definition; only back-to-back state writes to the same device
+//are folded, and they go through StateReconciler at run time, so a plan never re-sends a value
+//the device already has
+//payloads are not stored in the plan: what to send depends on the device state at run time,
+//and devices use the cached Command instances, so a run builds no payload text
+class SceneCompiler {
+    private final Map<String, Device> devices = new LinkedHashMap<>();
+
+    SceneCompiler(Light light, MusicSystem music, Thermostat thermostat, SecurityCamera camera,
+                  SmartDoor door, RobotVacuum vacuum, SmartMirror mirror) {
+        register("light", light);
+        register("music", music);
+        register("thermostat", thermostat);
+        register("camera", camera);
+        register("door", door);
+        register("vacuum", vacuum);
+        register("mirror", mirror);
+    }
+
+    private void register(String role, Device device) {
+        if (device != null) {
+            devices.put(role, device);
+        }
+    }
+
+    CommandPlan compile(SceneDefinition definition) {
+        Scene.Builder scene = Scene.builder(definition.getName());
+        int commands = 0;
+
+        for (List<SceneDefinition.Step> steps : definition.getLanes()) {
+            List<Runnable> lane = new ArrayList<>();
+            //batching controllers this lane wrote to, flushed once the lane is done
+            List<BatchingController> batching = new ArrayList<>();
+            //state writes of the directly preceding step(s), if they went to the same device
+            StateWrite open = null;
+
+            for (SceneDefinition.Step step : steps) {
+                Device device = devices.get(step.device());
+                if (device == null) {
+                    throw new IllegalArgumentException("Scene " + definition.getName()
+                        + ": unknown device '" + step.device() + "'");
+                }
+                if (device.getController() instanceof BatchingController controller
+                        && !batching.contains(controller)) {
+                    batching.add(controller);
+                }
+
+                Map.Entry<String, Object> state = desiredState(definition.getName(), device, step);
+                if (state == null) {
+                    open = null;
+                    lane.add(bind(definition.getName(), device, step));
+                    commands++;
+                    continue;
+                }
+
+                //back-to-back writes to one device fold into one reconcile step, last value wins
+                if (open == null || open.device != device) {
+                    open = new StateWrite(device);
+                    lane.add(open);
+                    commands++;
+                }
+                open.put(state.getKey(), state.getValue());
+            }
+
+            for (BatchingController controller : batching) {
+                lane.add(controller::flush);
+            }
+            scene.lane(lane);
+        }
+        return new CommandPlan(scene.build(), commands);
+    }
+
+    //attribute and value a step drives the device to, or null for commands without state (play, display, ...)
+    private Map.Entry<String, Object> desiredState(String scene, Device device, SceneDefinition.Step step) {
+        String action = step.action();
+        if (device instanceof Light) {
+            switch (action) {
+                case "on": return Map.entry("brightness", 100);
+                case "off": return Map.entry("brightness", 0);
+                case "brightness": return Map.entry("brightness", intArg(scene, step));
+            }
+        } else if (device instanceof MusicSystem && action.equals("volume")) {
+            return Map.entry("volume", intArg(scene, step));
+        } else if (device instanceof Thermostat) {
+            switch (action) {
+                case "temperature": return Map.entry("target", intArg(scene, step));
+                case "eco": return Map.entry("target", Thermostat.ECO_TEMP);
+            }
+        } else if (device instanceof SecurityCamera) {
+            switch (action) {
+                case "arm": return Map.entry("armed", true);
+                case "disarm": return Map.entry("armed", false);
+            }
+        } else if (device instanceof SmartDoor) {
+            switch (action) {
+                case "lock": return Map.entry("locked", true);
+                case "unlock": return Map.entry("locked", false);
+            }
+        }
+        return null;
+    }
+
+    //commands without a reconcilable state; state-setting actions are handled by desiredState
+    private Runnable bind(String scene, Device device, SceneDefinition.Step step) {
+        String action = step.action();
+        String arg = step.argument();
+
+        if (device instanceof MusicSystem music) {
+            switch (action) {
+                case "play": {
+                    String playlist = arg == null ? "default_playlist" : arg;
+                    return () -> music.play(playlist);
+                }
+                case "stop": return music::stop;
+            }
+        } else if (device instanceof Thermostat thermostat && action.equals("off")) {
+            return thermostat::turnOff;
+        } else if (device instanceof RobotVacuum vacuum) {
+            switch (action) {
+                case "clean": {
+                    String area = arg == null ? "AllRooms" : arg;
+                    return () -> vacuum.startCleaning(area);
+                }
+                case "dock": return vacuum::dock;
+                case "charge": {
+                    int value = intArg(scene, step);
+                    return () -> vacuum.setCharging(value);
+                }
+            }
+        } else if (device instanceof SmartMirror mirror) {
+            switch (action) {
+                case "display": {
+                    String text = arg == null ? "" : arg;
+                    return () -> mirror.display(text);
+                }
+                case "off": return mirror::turnOff;
+            }
+        }
+        throw new IllegalArgumentException("Scene " + scene + ": unsupported action '" + action
+            + "' for " + step.device());
+    }
+
+    private static int intArg(String scene, SceneDefinition.Step step) {
+        String raw = step.argument();
+        if (raw != null) {
+            try {
+                return Integer.parseInt(raw.trim());
+            } catch (NumberFormatException ignored) {
+                //reported below
+            }
+        }
+        throw new IllegalArgumentException("Scene " + scene + ": " + step.device() + "." + step.action()
+            + " expects a number, got '" + raw + "'");
+    }
+
+    //one folded reconcile step; filled while compiling, only read once the plan runs
+    //indexed lists, so running the step allocates no iterator or status map
+    private static final class StateWrite implements Runnable {
+        final Device device;
+        private final List<String> attributes = new ArrayList<>(2);
+        private final List<Object> values = new ArrayList<>(2);
+
+        StateWrite(Device device) {
+            this.device = device;
+        }
+
+        void put(String attribute, Object value) {
+            int index = attributes.indexOf(attribute);
+            if (index < 0) {
+                attributes.add(attribute);
+                values.add(value);
+            } else {
+                values.set(index, value);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < attributes.size(); i++) {
+                StateReconciler.reconcile(device, attributes.get(i), values.get(i));
+            }
+        }
+    }
+}
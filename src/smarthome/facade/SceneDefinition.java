@@ -0,0 +1,92 @@
+package smarthome.facade;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//a scene described as data: ordered (device, action, argument) steps in one or more lanes
+//steps of a lane always run in the declared order; separate lanes may run at the same time
+//devices are referred to by role: light, music, thermostat, camera, door, vacuum, mirror
+public final class SceneDefinition {
+    private final String name;
+    private final List<List<Step>> lanes;
+
+    private SceneDefinition(String name, List<List<Step>> lanes) {
+        this.name = name;
+        this.lanes = lanes;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<List<Step>> getLanes() {
+        return lanes;
+    }
+
+    //all steps, lane by lane
+    public List<Step> getSteps() {
+        List<Step> steps = new ArrayList<>();
+        for (List<Step> lane : lanes) {
+            steps.addAll(lane);
+        }
+        return steps;
+    }
+
+    public record Step(String device, String action, String argument) {
+        public Step {
+            if (device == null || device.isBlank()) {
+                throw new IllegalArgumentException("Step device cannot be empty");
+            }
+            if (action == null || action.isBlank()) {
+                throw new IllegalArgumentException("Step action cannot be empty");
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final List<List<Step>> lanes = new ArrayList<>();
+        private List<Step> steps = new ArrayList<>();
+
+        private Builder(String name) {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Scene name cannot be empty");
+            }
+            this.name = name;
+        }
+
+        //starts a new lane; steps before it stay in the previous one
+        //without lane() every step is in one lane and the scene runs strictly in order
+        public Builder lane() {
+            if (!steps.isEmpty()) {
+                lanes.add(List.copyOf(steps));
+                steps = new ArrayList<>();
+            }
+            return this;
+        }
+
+        public Builder step(String device, String action) {
+            return step(device, action, null);
+        }
+
+        public Builder step(String device, String action, Object argument) {
+            steps.add(new Step(device, action, argument == null ? null : String.valueOf(argument)));
+            return this;
+        }
+
+        public SceneDefinition build() {
+            List<List<Step>> all = new ArrayList<>(lanes);
+            if (!steps.isEmpty()) {
+                all.add(List.copyOf(steps));
+            }
+            if (all.isEmpty()) {
+                throw new IllegalStateException("Scene " + name + " has no steps");
+            }
+            return new SceneDefinition(name, List.copyOf(all));
+        }
+    }
+}
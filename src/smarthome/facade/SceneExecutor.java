@@ -0,0 +1,110 @@
+package smarthome.facade;
+
+import smarthome.metrics.Counter;
+import smarthome.metrics.LatencyHistogram;
+import smarthome.metrics.MetricsRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+//runs the lanes of a scene either one after another or concurrently on an executor
+//with a parallel executor the scene latency is the slowest lane instead of the sum of all devices
+public class SceneExecutor {
+    private final Executor executor;
+    private final MetricsRegistry metrics;
+    //metric names are built and looked up once per scene name, not on every run
+    private final Map<String, SceneMetrics> sceneMetrics = new ConcurrentHashMap<>();
+
+    private SceneExecutor(Executor executor, MetricsRegistry metrics) {
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    public static SceneExecutor sequential() {
+        return new SceneExecutor(null, null);
+    }
+
+    //lanes block on device I/O, so they run on an executor the caller owns and sizes
+    public static SceneExecutor parallel(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (executor == ForkJoinPool.commonPool()) {
+            throw new IllegalArgumentException("Scene lanes need a dedicated executor, not the common pool");
+        }
+        return new SceneExecutor(executor, null);
+    }
+
+    //same executor, recording scene.<name> durations and scene.<name>.failures
+    public SceneExecutor withMetrics(MetricsRegistry metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("MetricsRegistry cannot be null");
+        }
+        return new SceneExecutor(executor, metrics);
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    public SceneReport run(Scene scene) {
+        if (metrics == null) {
+            return execute(scene);
+        }
+        SceneMetrics recorded = sceneMetrics.get(scene.getName());
+        if (recorded == null) {
+            recorded = sceneMetrics.computeIfAbsent(scene.getName(), name ->
+                new SceneMetrics(metrics.histogram("scene." + name), metrics.counter("scene." + name + ".failures")));
+        }
+        try {
+            SceneReport report = execute(scene);
+            recorded.duration().record(report.elapsed().toNanos());
+            return report;
+        } catch (RuntimeException ex) {
+            recorded.failures().increment();
+            throw ex;
+        }
+    }
+
+    private SceneReport execute(Scene scene) {
+        long start = System.nanoTime();
+        List<List<Runnable>> lanes = scene.getLanes();
+
+        if (executor == null || lanes.size() < 2) {
+            for (List<Runnable> lane : lanes) {
+                runLane(lane);
+            }
+        } else {
+            CompletableFuture<?>[] running = new CompletableFuture<?>[lanes.size()];
+            for (int i = 0; i < running.length; i++) {
+                List<Runnable> lane = lanes.get(i);
+                running[i] = CompletableFuture.runAsync(() -> runLane(lane), executor);
+            }
+            try {
+                CompletableFuture.allOf(running).join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+
+        return new SceneReport(scene.getName(), lanes.size(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static void runLane(List<Runnable> lane) {
+        for (Runnable step : lane) {
+            step.run();
+        }
+    }
+
+    private record SceneMetrics(LatencyHistogram duration, Counter failures) {
+    }
+}
@@ -0,0 +1,12 @@
+package smarthome.facade;
+
+import java.time.Duration;
+
+//end-to-end timing of one scene run
+public record SceneReport(String sceneName, int lanes, Duration elapsed) {
+
+    @Override
+    public String toString() {
+        return sceneName + " finished " + lanes + " lane(s) in " + elapsed.toMillis() + " ms";
+    }
+}
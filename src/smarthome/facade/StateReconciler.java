@@ -0,0 +1,151 @@
+package smarthome.facade;
+
+import smarthome.devices.Device;
+import smarthome.devices.Light;
+import smarthome.devices.MusicSystem;
+import smarthome.devices.SecurityCamera;
+import smarthome.devices.SmartDoor;
+import smarthome.devices.Thermostat;
+
+import java.util.Map;
+
+//desired-state reconciliation: compares a target state with the device's current state
+//and only issues the commands for attributes that actually differ
+//the current value comes from the device's typed getter, so a check allocates no status() map
+//power is read from the device too: a value that already matches still powers an off device
+//on or off, and "on" can be reconciled on its own for lights and thermostats
+public class StateReconciler {
+
+    //returns the number of attributes that had to be changed
+    public static int reconcile(Device device, Map<String, Object> desired) {
+        int changed = 0;
+        for (Map.Entry<String, Object> entry : desired.entrySet()) {
+            if (reconcile(device, entry.getKey(), entry.getValue())) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    public static boolean reconcile(Device device, String attribute, Object value) {
+        if (!isReconcilable(device, attribute)) {
+            throw new IllegalArgumentException("Cannot reconcile '" + attribute + "' on " + device.getName());
+        }
+        if (attribute.equals("on")) {
+            return applyPower(device, asBoolean(value));
+        }
+        return apply(device, value);
+    }
+
+    //true when the attribute is one the reconciler knows how to drive for this device
+    static boolean isReconcilable(Device device, String attribute) {
+        if (attribute.equals("on")) {
+            return device instanceof Light || device instanceof Thermostat;
+        }
+        return (device instanceof Light && attribute.equals("brightness"))
+            || (device instanceof MusicSystem && attribute.equals("volume"))
+            || (device instanceof Thermostat && attribute.equals("target"))
+            || (device instanceof SecurityCamera && attribute.equals("armed"))
+            || (device instanceof SmartDoor && attribute.equals("locked"));
+    }
+
+    //attribute already checked: each device type has one reconcilable value besides "on"
+    private static boolean apply(Device device, Object value) {
+        if (device instanceof Light light) {
+            int target = Math.max(0, Math.min(100, asInt(value)));
+            boolean same = target == light.getBrightness();
+            if (target == 0) {
+                //0% means off, a light left powered at 0% still gets switched off
+                if (same && !light.isOn()) {
+                    return false;
+                }
+                light.off();
+            } else if (!light.isOn()) {
+                light.on(target);
+            } else if (same) {
+                return false;
+            } else {
+                light.setBrightness(target);
+            }
+            return true;
+        }
+        if (device instanceof MusicSystem music) {
+            int target = Math.max(0, Math.min(100, asInt(value)));
+            if (target == music.getVolume()) {
+                return false;
+            }
+            music.setVolume(target);
+            return true;
+        }
+        if (device instanceof Thermostat thermostat) {
+            int target = Thermostat.clamp(asInt(value));
+            //setTemperature() also powers the thermostat on, so a matching target is only skipped while on
+            if (thermostat.isOn() && target == thermostat.getTarget()) {
+                return false;
+            }
+            thermostat.setTemperature(target);
+            return true;
+        }
+        if (device instanceof SecurityCamera camera) {
+            boolean armed = asBoolean(value);
+            if (armed == camera.isArmed()) {
+                return false;
+            }
+            if (armed) {
+                camera.arm();
+            } else {
+                camera.disarm();
+            }
+            return true;
+        }
+        SmartDoor door = (SmartDoor) device;
+        boolean locked = asBoolean(value);
+        if (locked == door.isLocked()) {
+            return false;
+        }
+        if (locked) {
+            door.lock();
+        } else {
+            door.unlock();
+        }
+        return true;
+    }
+
+    private static boolean applyPower(Device device, boolean on) {
+        if (device instanceof Light light) {
+            if (light.isOn() == on) {
+                return false;
+            }
+            if (on) {
+                light.on();
+            } else {
+                light.off();
+            }
+            return true;
+        }
+        Thermostat thermostat = (Thermostat) device;
+        if (thermostat.isOn() == on) {
+            return false;
+        }
+        if (on) {
+            thermostat.operate();
+        } else {
+            thermostat.turnOff();
+        }
+        return true;
+    }
+
+    private static int asInt(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        return Integer.parseInt(String.valueOf(value));
+    }
+
+    private static boolean asBoolean(Object value) {
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        return Boolean.parseBoolean(String.valueOf(value));
+    }
+}
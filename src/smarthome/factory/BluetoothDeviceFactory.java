@@ -1,5 +1,6 @@
 package smarthome.factory;
 
+import smarthome.controllers.DeviceController;
 import smarthome.controllers.BluetoothController;
 import smarthome.devices.Light;
 import smarthome.devices.MusicSystem;
@@ -10,7 +11,19 @@ import smarthome.devices.SmartDoor;
 import smarthome.devices.RobotVacuum;
 // concrete factory for creating bluetooth-based smart home devices
 public class BluetoothDeviceFactory implements SmartDeviceFactory {
-    private final BluetoothController controller = new BluetoothController();
+    private final DeviceController controller;
+
+    public BluetoothDeviceFactory() {
+        this(new BluetoothController());
+    }
+
+    //lets callers wrap the controller, e.g. in a BatchingController
+    public BluetoothDeviceFactory(DeviceController controller) {
+        if (controller == null) {
+            throw new IllegalArgumentException("DeviceController cannot be null");
+        }
+        this.controller = controller;
+    }
 
     @Override
     public Light createLight() {
@@ -5,7 +5,19 @@ import smarthome.controllers.DeviceController;
 import smarthome.devices.*;
 
 public class OldRemoteDeviceFactory implements SmartDeviceFactory {
-    private final DeviceController oldRemoteController = new OldRemoteControllerAdapter();
+    private final DeviceController oldRemoteController;
+
+    public OldRemoteDeviceFactory() {
+        this(new OldRemoteControllerAdapter());
+    }
+
+    //lets callers wrap the adapter, e.g. in a BatchingController
+    public OldRemoteDeviceFactory(DeviceController controller) {
+        if (controller == null) {
+            throw new IllegalArgumentException("DeviceController cannot be null");
+        }
+        this.oldRemoteController = controller;
+    }
 
     @Override
     public Light createLight() {
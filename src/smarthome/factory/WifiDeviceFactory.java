@@ -1,5 +1,6 @@
 package smarthome.factory;
 
+import smarthome.controllers.DeviceController;
 import smarthome.controllers.WifiController;
 import smarthome.devices.Light;
 import smarthome.devices.MusicSystem;
@@ -10,7 +11,19 @@ import smarthome.devices.SmartDoor;
 import smarthome.devices.RobotVacuum;
 // concrete factory for creating WiFi-based smart home devices
 public class WifiDeviceFactory implements SmartDeviceFactory {
-    private final WifiController controller = new WifiController();
+    private final DeviceController controller;
+
+    public WifiDeviceFactory() {
+        this(new WifiController());
+    }
+
+    //lets callers wrap the controller, e.g. in a BatchingController
+    public WifiDeviceFactory(DeviceController controller) {
+        if (controller == null) {
+            throw new IllegalArgumentException("DeviceController cannot be null");
+        }
+        this.controller = controller;
+    }
 
     @Override
     public Light createLight() {
@@ -0,0 +1,35 @@
+package smarthome.home;
+
+import smarthome.controllers.BluetoothController;
+import smarthome.controllers.DeviceController;
+import smarthome.controllers.OldRemoteControllerAdapter;
+import smarthome.controllers.WifiController;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+//one controller per controller kind, shared by every home
+//homes never use these directly: HomeResources wraps them so device names carry the home id
+public class ControllerPool {
+
+    public enum Kind { WIFI, BLUETOOTH, OLD_REMOTE }
+
+    private final Map<Kind, DeviceController> controllers = new EnumMap<>(Kind.class);
+
+    public ControllerPool() {
+        this(new WifiController(), new BluetoothController(), new OldRemoteControllerAdapter());
+    }
+
+    public ControllerPool(DeviceController wifi, DeviceController bluetooth, DeviceController oldRemote) {
+        if (wifi == null || bluetooth == null || oldRemote == null) {
+            throw new IllegalArgumentException("DeviceController cannot be null");
+        }
+        controllers.put(Kind.WIFI, wifi);
+        controllers.put(Kind.BLUETOOTH, bluetooth);
+        controllers.put(Kind.OLD_REMOTE, oldRemote);
+    }
+
+    public DeviceController controller(Kind kind) {
+        return controllers.get(kind);
+    }
+}
@@ -0,0 +1,78 @@
+package smarthome.home;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//counters for one home; written by runtime workers, read by anyone
+public class HomeMetrics {
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder auditRecords = new LongAdder();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+
+    void onSubmit() {
+        submitted.increment();
+        int depth = queued.incrementAndGet();
+        maxQueued.accumulateAndGet(depth, Math::max);
+    }
+
+    void onReject() {
+        rejected.increment();
+    }
+
+    void onFinish(long nanos, boolean ok) {
+        queued.decrementAndGet();
+        busyNanos.add(nanos);
+        if (ok) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    void onAudit() {
+        auditRecords.increment();
+    }
+
+    public long submitted() {
+        return submitted.sum();
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long busyNanos() {
+        return busyNanos.sum();
+    }
+
+    public long auditRecords() {
+        return auditRecords.sum();
+    }
+
+    public int queueDepth() {
+        return queued.get();
+    }
+
+    public int maxQueueDepth() {
+        return maxQueued.get();
+    }
+
+    @Override
+    public String toString() {
+        return "submitted=" + submitted() + ", completed=" + completed() + ", failed=" + failed()
+            + ", rejected=" + rejected() + ", queued=" + queueDepth() + ", busy=" + busyNanos() / 1_000_000 + "ms";
+    }
+}
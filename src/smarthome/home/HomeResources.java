@@ -0,0 +1,57 @@
+package smarthome.home;
+
+import smarthome.audit.AuditRecord;
+import smarthome.audit.AuditSink;
+import smarthome.factory.BluetoothDeviceFactory;
+import smarthome.factory.OldRemoteDeviceFactory;
+import smarthome.factory.SmartDeviceFactory;
+import smarthome.factory.WifiDeviceFactory;
+import smarthome.scheduling.TimerWheel;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+//what a home may use while it builds its facade: factories over the pooled controllers and the
+//shared timer wheel and audit sink; device names and audit records are tagged with the home id
+public class HomeResources {
+    private final String homeId;
+    private final ControllerPool controllers;
+    private final TimerWheel timerWheel;
+    private final AuditSink audit;
+    private final Map<ControllerPool.Kind, SmartDeviceFactory> factories = new EnumMap<>(ControllerPool.Kind.class);
+
+    HomeResources(String homeId, ControllerPool controllers, TimerWheel timerWheel,
+                  AuditSink sharedAudit, HomeMetrics metrics) {
+        this.homeId = homeId;
+        this.controllers = controllers;
+        this.timerWheel = timerWheel;
+        this.audit = record -> {
+            metrics.onAudit();
+            sharedAudit.record(new AuditRecord(record.timestampMillis(), homeId + "/" + record.device(),
+                record.action(), record.outcome(), record.detail()));
+        };
+    }
+
+    public String homeId() {
+        return homeId;
+    }
+
+    public synchronized SmartDeviceFactory factory(ControllerPool.Kind kind) {
+        return factories.computeIfAbsent(kind, k -> {
+            HomeScopedController scoped = new HomeScopedController(homeId, controllers.controller(k));
+            return switch (k) {
+                case WIFI -> new WifiDeviceFactory(scoped);
+                case BLUETOOTH -> new BluetoothDeviceFactory(scoped);
+                case OLD_REMOTE -> new OldRemoteDeviceFactory(scoped);
+            };
+        });
+    }
+
+    public TimerWheel timerWheel() {
+        return timerWheel;
+    }
+
+    public AuditSink audit() {
+        return audit;
+    }
+}
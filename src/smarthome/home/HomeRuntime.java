@@ -0,0 +1,196 @@
+package smarthome.home;
+
+import smarthome.audit.AuditSink;
+import smarthome.facade.HomeAutomationFacade;
+import smarthome.facade.SceneReport;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+import smarthome.scheduling.TimerWheel;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+//hosts many homes in one JVM
+//every home has its own task queue and runs at most one task at a time, so its devices are never
+//touched concurrently; workers serve homes round robin, a few tasks per turn, so a busy home
+//only delays itself
+public class HomeRuntime implements AutoCloseable {
+    public static final int DEFAULT_TASKS_PER_TURN = 4;
+    public static final int DEFAULT_MAX_QUEUED = 1024;
+
+    private static final Logger LOG = Log.getLogger(HomeRuntime.class);
+
+    private final ControllerPool controllers;
+    private final TimerWheel timerWheel;
+    //only a wheel this runtime created is closed with it, a caller-supplied one belongs to the caller
+    private final boolean ownsTimerWheel;
+    private final AuditSink audit;
+    private final ExecutorService workers;
+    private final int tasksPerTurn;
+    private final int maxQueued;
+    private final Map<String, Home> homes = new ConcurrentHashMap<>();
+
+    public HomeRuntime(int workerThreads) {
+        this(workerThreads, new ControllerPool(), new TimerWheel(), true, AuditSink.console(),
+            DEFAULT_TASKS_PER_TURN, DEFAULT_MAX_QUEUED);
+    }
+
+    public HomeRuntime(int workerThreads, ControllerPool controllers, TimerWheel timerWheel, AuditSink audit,
+                       int tasksPerTurn, int maxQueued) {
+        this(workerThreads, controllers, timerWheel, false, audit, tasksPerTurn, maxQueued);
+    }
+
+    private HomeRuntime(int workerThreads, ControllerPool controllers, TimerWheel timerWheel, boolean ownsTimerWheel,
+                        AuditSink audit, int tasksPerTurn, int maxQueued) {
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("workerThreads must be positive");
+        }
+        if (controllers == null || timerWheel == null || audit == null) {
+            throw new IllegalArgumentException("Shared resources cannot be null");
+        }
+        if (tasksPerTurn <= 0 || maxQueued <= 0) {
+            throw new IllegalArgumentException("tasksPerTurn and maxQueued must be positive");
+        }
+        this.controllers = controllers;
+        this.timerWheel = timerWheel;
+        this.ownsTimerWheel = ownsTimerWheel;
+        this.audit = audit;
+        this.tasksPerTurn = tasksPerTurn;
+        this.maxQueued = maxQueued;
+        //the pool's FIFO queue is the round robin: a home that still has work goes to the back
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread thread = new Thread(r, "home-runtime");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timerWheel.start();
+    }
+
+    //setup receives the shared resources and builds the home's facade
+    public HomeAutomationFacade addHome(String homeId, Function<HomeResources, HomeAutomationFacade> setup) {
+        if (homeId == null || homeId.isBlank()) {
+            throw new IllegalArgumentException("Home id cannot be empty");
+        }
+        HomeMetrics metrics = new HomeMetrics();
+        HomeAutomationFacade facade = setup.apply(new HomeResources(homeId, controllers, timerWheel, audit, metrics));
+        if (facade == null) {
+            throw new IllegalArgumentException("Home setup returned no facade: " + homeId);
+        }
+        if (homes.putIfAbsent(homeId, new Home(homeId, facade, metrics, maxQueued)) != null) {
+            throw new IllegalArgumentException("Home already exists: " + homeId);
+        }
+        return facade;
+    }
+
+    public boolean removeHome(String homeId) {
+        return homes.remove(homeId) != null;
+    }
+
+    public Set<String> homeIds() {
+        return Set.copyOf(homes.keySet());
+    }
+
+    public HomeMetrics metrics(String homeId) {
+        return home(homeId).metrics;
+    }
+
+    public <T> CompletableFuture<T> submit(String homeId, Function<HomeAutomationFacade, T> task) {
+        Home home = home(homeId);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        //permit first, so concurrent submitters cannot overshoot the bound
+        if (!home.slots.tryAcquire()) {
+            home.metrics.onReject();
+            result.completeExceptionally(new IllegalStateException("Task queue full for home: " + homeId));
+            return result;
+        }
+        home.metrics.onSubmit();
+        home.tasks.add(() -> {
+            long start = System.nanoTime();
+            boolean ok = false;
+            try {
+                result.complete(task.apply(home.facade));
+                ok = true;
+            } catch (RuntimeException ex) {
+                LOG.warn("[Runtime] task failed in home {}: {}", homeId, ex.getMessage());
+                result.completeExceptionally(ex);
+            } finally {
+                home.metrics.onFinish(System.nanoTime() - start, ok);
+                home.slots.release();
+            }
+        });
+        schedule(home);
+        return result;
+    }
+
+    public CompletableFuture<SceneReport> runScene(String homeId, String sceneName) {
+        return submit(homeId, facade -> facade.runScene(sceneName));
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsTimerWheel) {
+            timerWheel.close();
+        }
+    }
+
+    private Home home(String homeId) {
+        Home home = homes.get(homeId);
+        if (home == null) {
+            throw new IllegalArgumentException("Unknown home: " + homeId);
+        }
+        return home;
+    }
+
+    private void schedule(Home home) {
+        if (home.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> runTurn(home));
+        }
+    }
+
+    private void runTurn(Home home) {
+        for (int i = 0; i < tasksPerTurn; i++) {
+            Runnable task = home.tasks.poll();
+            if (task == null) {
+                break;
+            }
+            task.run();
+        }
+        home.scheduled.set(false);
+        //a task may have arrived after the last poll but before the flag was cleared
+        if (!home.tasks.isEmpty()) {
+            schedule(home);
+        }
+    }
+
+    private static final class Home {
+        final String id;
+        final HomeAutomationFacade facade;
+        final HomeMetrics metrics;
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final Semaphore slots;
+
+        Home(String id, HomeAutomationFacade facade, HomeMetrics metrics, int maxQueued) {
+            this.id = id;
+            this.facade = facade;
+            this.metrics = metrics;
+            this.slots = new Semaphore(maxQueued);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package smarthome.home;
+
+import smarthome.controllers.Command;
+import smarthome.controllers.DeviceController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//qualifies device names with the home id before they reach a pooled controller,
+//so "Light" of two homes is "home-1/Light" and "home-2/Light" on the wire and in id tables
+//a home has a handful of device names, so each scoped name is built once and reused
+final class HomeScopedController implements DeviceController {
+    private final String prefix;
+    private final DeviceController shared;
+    private final Map<String, String> scopedNames = new ConcurrentHashMap<>();
+
+    HomeScopedController(String homeId, DeviceController shared) {
+        this.prefix = homeId + "/";
+        this.shared = shared;
+    }
+
+    @Override
+    public void powerOn(String deviceName) {
+        shared.powerOn(scoped(deviceName));
+    }
+
+    @Override
+    public void powerOff(String deviceName) {
+        shared.powerOff(scoped(deviceName));
+    }
+
+    @Override
+    public void send(String deviceName, String payload) {
+        shared.send(scoped(deviceName), payload);
+    }
+
+    @Override
+    public void send(String deviceName, Command command) {
+        shared.send(scoped(deviceName), command);
+    }
+
+    @Override
+    public void sendBatch(String deviceName, List<Command> commands) {
+        shared.sendBatch(scoped(deviceName), commands);
+    }
+
+    private String scoped(String deviceName) {
+        String name = scopedNames.get(deviceName);
+        if (name == null) {
+            name = scopedNames.computeIfAbsent(deviceName, n -> prefix + n);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,78 @@
+package smarthome.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//hands events to a background thread so the calling device never waits on the console
+//events are dropped (and counted) when the queue is full
+public class AsyncAppender implements LogAppender, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final int BATCH_SIZE = 256;
+
+    private final LogAppender target;
+    private final BlockingQueue<LogEvent> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public AsyncAppender(LogAppender target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    public AsyncAppender(LogAppender target, int capacity) {
+        if (target == null) {
+            throw new IllegalArgumentException("LogAppender cannot be null");
+        }
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drainLoop, "log-appender");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        if (closed || !queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    //delivers what is still queued, then stops the worker
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<LogEvent> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                LogEvent first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (LogEvent event : batch) {
+                    target.append(event);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
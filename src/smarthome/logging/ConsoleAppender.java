@@ -0,0 +1,14 @@
+package smarthome.logging;
+
+//prints the bare message, which keeps the demo output exactly as it was
+public final class ConsoleAppender implements LogAppender {
+
+    @Override
+    public void append(LogEvent event) {
+        if (event.level().compareTo(Level.WARN) >= 0) {
+            System.err.println(event.message());
+        } else {
+            System.out.println(event.message());
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package smarthome.logging;
+
+public enum Level {
+    TRACE, DEBUG, INFO, WARN, ERROR, OFF
+}
@@ -0,0 +1,44 @@
+package smarthome.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+//central switchboard: one global level and one appender for every logger
+//Log.setLevel(Level.WARN) turns the verbose device and controller output off
+public final class Log {
+    private static final ConcurrentHashMap<String, Logger> loggers = new ConcurrentHashMap<>();
+    static volatile Level level = Level.INFO;
+    static volatile LogAppender appender = new ConsoleAppender();
+
+    private Log() {
+    }
+
+    public static Logger getLogger(String name) {
+        return loggers.computeIfAbsent(name, Logger::new);
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return getLogger(type.getSimpleName());
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        if (newLevel == null) {
+            throw new IllegalArgumentException("Level cannot be null");
+        }
+        level = newLevel;
+    }
+
+    public static LogAppender getAppender() {
+        return appender;
+    }
+
+    public static void setAppender(LogAppender newAppender) {
+        if (newAppender == null) {
+            throw new IllegalArgumentException("LogAppender cannot be null");
+        }
+        appender = newAppender;
+    }
+}
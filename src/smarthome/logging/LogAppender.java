@@ -0,0 +1,6 @@
+package smarthome.logging;
+
+//receives formatted events, only for levels that are enabled
+public interface LogAppender {
+    void append(LogEvent event);
+}
@@ -0,0 +1,4 @@
+package smarthome.logging;
+
+public record LogEvent(long timestampMillis, Level level, String logger, String message) {
+}
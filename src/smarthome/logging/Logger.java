@@ -0,0 +1,83 @@
+package smarthome.logging;
+
+//parameterized logging with "{}" placeholders
+//arguments are only formatted after the level check, so disabled calls cost a field read
+public final class Logger {
+    private final String name;
+
+    Logger(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(Log.level) >= 0 && level != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String pattern, Object arg) {
+        if (isEnabled(Level.DEBUG)) log(Level.DEBUG, pattern, arg, null, null);
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG)) log(Level.DEBUG, pattern, arg1, arg2, null);
+    }
+
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) log(Level.INFO, message, null, null, null);
+    }
+
+    public void info(String pattern, Object arg) {
+        if (isEnabled(Level.INFO)) log(Level.INFO, pattern, arg, null, null);
+    }
+
+    public void info(String pattern, Object arg1, Object arg2) {
+        if (isEnabled(Level.INFO)) log(Level.INFO, pattern, arg1, arg2, null);
+    }
+
+    public void info(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(Level.INFO)) log(Level.INFO, pattern, arg1, arg2, arg3);
+    }
+
+    public void warn(String pattern, Object arg) {
+        if (isEnabled(Level.WARN)) log(Level.WARN, pattern, arg, null, null);
+    }
+
+    public void warn(String pattern, Object arg1, Object arg2) {
+        if (isEnabled(Level.WARN)) log(Level.WARN, pattern, arg1, arg2, null);
+    }
+
+    public void error(String pattern, Object arg) {
+        if (isEnabled(Level.ERROR)) log(Level.ERROR, pattern, arg, null, null);
+    }
+
+    private void log(Level level, String pattern, Object a, Object b, Object c) {
+        Log.appender.append(new LogEvent(System.currentTimeMillis(), level, name, format(pattern, a, b, c)));
+    }
+
+    static String format(String pattern, Object a, Object b, Object c) {
+        int first = pattern.indexOf("{}");
+        if (first < 0) {
+            return pattern;
+        }
+        StringBuilder out = new StringBuilder(pattern.length() + 32);
+        int from = 0;
+        int at = first;
+        int arg = 0;
+        while (at >= 0 && arg < 3) {
+            out.append(pattern, from, at);
+            out.append(arg == 0 ? a : arg == 1 ? b : c);
+            arg++;
+            from = at + 2;
+            at = pattern.indexOf("{}", from);
+        }
+        out.append(pattern, from, pattern.length());
+        return out.toString();
+    }
+}
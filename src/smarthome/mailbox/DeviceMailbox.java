@@ -0,0 +1,190 @@
+package smarthome.mailbox;
+
+import smarthome.devices.Device;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//actor-style queue in front of one device: commands run one at a time, in the order they were accepted
+//no thread per device; a mailbox with work borrows a thread from the shared executor for a short turn
+public class DeviceMailbox<D extends Device> {
+    private static final Logger LOG = Log.getLogger(DeviceMailbox.class);
+
+    private final D device;
+    private final Executor executor;
+    private final int capacity;
+    private final int commandsPerTurn;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    //one permit per free slot; offer() takes one, finishing a command gives it back
+    private final Semaphore slots;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    DeviceMailbox(D device, Executor executor, int capacity, int commandsPerTurn) {
+        this.device = device;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.commandsPerTurn = commandsPerTurn;
+        this.slots = new Semaphore(capacity);
+    }
+
+    //non-blocking; false when the mailbox is full
+    public boolean offer(Consumer<? super D> command) {
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+        enqueue(command);
+        return true;
+    }
+
+    //waits up to timeout for a free slot; false if none came
+    public boolean offer(Consumer<? super D> command, Duration timeout) throws InterruptedException {
+        if (!slots.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            rejected.increment();
+            return false;
+        }
+        enqueue(command);
+        return true;
+    }
+
+    //completes when the command has run; fails at once if the mailbox is full
+    //or the executor refuses to run it
+    public CompletableFuture<Void> submit(Consumer<? super D> command) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            if (!offer(completing(command, done))) {
+                done.completeExceptionally(new IllegalStateException("Mailbox full for " + device.getName()));
+            }
+        } catch (RuntimeException ex) {
+            done.completeExceptionally(ex);
+        }
+        return done;
+    }
+
+    //waits up to timeout for a free slot, then completes when the command has run
+    public CompletableFuture<Void> submit(Consumer<? super D> command, Duration timeout) throws InterruptedException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            if (!offer(completing(command, done), timeout)) {
+                done.completeExceptionally(new IllegalStateException("Mailbox full for " + device.getName()));
+            }
+        } catch (RuntimeException ex) {
+            done.completeExceptionally(ex);
+        }
+        return done;
+    }
+
+    public D getDevice() {
+        return device;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int queueDepth() {
+        return capacity - slots.availablePermits();
+    }
+
+    public int maxQueueDepth() {
+        return maxDepth.get();
+    }
+
+    public long processedCount() {
+        return processed.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    private Consumer<D> completing(Consumer<? super D> command, CompletableFuture<Void> done) {
+        return d -> {
+            //the caller already gave up on it (cancelled after a timeout)
+            if (done.isDone()) {
+                return;
+            }
+            try {
+                command.accept(d);
+                done.complete(null);
+            } catch (RuntimeException ex) {
+                done.completeExceptionally(ex);
+                throw ex;
+            }
+        };
+    }
+
+    private void enqueue(Consumer<? super D> command) {
+        Runnable task = () -> command.accept(device);
+        commands.add(task);
+        maxDepth.accumulateAndGet(queueDepth(), Math::max);
+        try {
+            schedule();
+        } catch (RuntimeException ex) {
+            //executor refused the turn (shut down, saturated): take the command back and free its slot
+            if (commands.remove(task)) {
+                slots.release();
+            }
+            throw ex;
+        }
+    }
+
+    //the flag is cleared again when execute() throws, so the next offer can retry
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::runTurn);
+            } catch (RuntimeException ex) {
+                scheduled.set(false);
+                throw ex;
+            }
+        }
+    }
+
+    //a few commands per turn, then back of the executor queue so busy devices do not hog threads
+    private void runTurn() {
+        for (int i = 0; i < commandsPerTurn; i++) {
+            Runnable command = commands.poll();
+            if (command == null) {
+                break;
+            }
+            try {
+                command.run();
+                processed.increment();
+            } catch (RuntimeException ex) {
+                failed.increment();
+                LOG.warn("[Mailbox] command failed on {}: {}", device.getName(), ex.getMessage());
+            } finally {
+                slots.release();
+            }
+        }
+        scheduled.set(false);
+        if (!commands.isEmpty()) {
+            try {
+                schedule();
+            } catch (RuntimeException ex) {
+                //queued commands keep their slots and run on the next turn an offer manages to schedule
+                LOG.warn("[Mailbox] could not reschedule {}: {}", device.getName(), ex.getMessage());
+            }
+        }
+    }
+}
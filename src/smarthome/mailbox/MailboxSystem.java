@@ -0,0 +1,72 @@
+package smarthome.mailbox;
+
+import smarthome.devices.Device;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+//hands out one mailbox per device instance, all sharing one executor
+//commands block on device I/O, so the executor is a dedicated one the caller owns;
+//on a JDK with virtual threads, pass Executors.newVirtualThreadPerTaskExecutor()
+public class MailboxSystem {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final int DEFAULT_COMMANDS_PER_TURN = 16;
+
+    private final Executor executor;
+    private final int capacity;
+    private final int commandsPerTurn;
+    //devices have no equals(), a mailbox belongs to one instance
+    private final Map<Device, DeviceMailbox<?>> mailboxes = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public MailboxSystem(Executor executor) {
+        this(executor, DEFAULT_CAPACITY, DEFAULT_COMMANDS_PER_TURN);
+    }
+
+    public MailboxSystem(Executor executor, int capacity, int commandsPerTurn) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (executor == ForkJoinPool.commonPool()) {
+            throw new IllegalArgumentException("Device mailboxes need a dedicated executor, not the common pool");
+        }
+        if (capacity <= 0 || commandsPerTurn <= 0) {
+            throw new IllegalArgumentException("capacity and commandsPerTurn must be positive");
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.commandsPerTurn = commandsPerTurn;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <D extends Device> DeviceMailbox<D> mailboxFor(D device) {
+        if (device == null) {
+            throw new IllegalArgumentException("Device cannot be null");
+        }
+        return (DeviceMailbox<D>) mailboxes.computeIfAbsent(device,
+            d -> new DeviceMailbox<>(d, executor, capacity, commandsPerTurn));
+    }
+
+    //forgets the device's mailbox, e.g. when the device is unregistered; commands already queued still run,
+    //and a later mailboxFor() starts a new mailbox
+    public boolean remove(Device device) {
+        return mailboxes.remove(device) != null;
+    }
+
+    public int size() {
+        return mailboxes.size();
+    }
+
+    //commands waiting across all mailboxes
+    public long totalQueueDepth() {
+        long total = 0;
+        synchronized (mailboxes) {
+            for (DeviceMailbox<?> mailbox : mailboxes.values()) {
+                total += mailbox.queueDepth();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,20 @@
+package smarthome.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//contention-free counter; threads add to their own cell and get() sums them
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
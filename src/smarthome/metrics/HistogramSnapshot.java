@@ -0,0 +1,73 @@
+package smarthome.metrics;
+
+//immutable copy of a LatencyHistogram at one point in time
+public final class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long max;
+    private final double mean;
+
+    HistogramSnapshot(long[] counts, long max) {
+        this.counts = counts;
+        this.max = max;
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                total += counts[i];
+                sum += (double) counts[i] * midpoint(i);
+            }
+        }
+        this.count = total;
+        this.mean = total == 0 ? 0 : sum / total;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    //upper bound of the bucket holding the given percentile (0-100), capped at the real max
+    public long valueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long p50() {
+        return valueAtPercentile(50);
+    }
+
+    public long p99() {
+        return valueAtPercentile(99);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + " mean=" + Math.round(mean) + "ns p50=" + p50() + "ns p90="
+            + valueAtPercentile(90) + "ns p99=" + p99() + "ns p99.9=" + valueAtPercentile(99.9)
+            + "ns max=" + max + "ns";
+    }
+
+    private static double midpoint(int bucket) {
+        long low = LatencyHistogram.lowestOf(bucket);
+        long high = LatencyHistogram.highestOf(bucket);
+        return high == Long.MAX_VALUE ? low : (low + high) / 2.0;
+    }
+}
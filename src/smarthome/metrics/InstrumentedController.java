@@ -0,0 +1,106 @@
+package smarthome.metrics;
+
+import smarthome.controllers.Command;
+import smarthome.controllers.DeviceController;
+
+import java.util.List;
+
+//times every call on the wrapped controller, controller.<name>.<op> per operation
+//no per-device series here: the controller only sees device names, which repeat;
+//use MetricsDecorator with a device id for that
+public class InstrumentedController implements DeviceController {
+    private final DeviceController delegate;
+    private final LatencyHistogram powerOn;
+    private final LatencyHistogram powerOff;
+    private final LatencyHistogram send;
+    private final Counter failures;
+
+    public InstrumentedController(DeviceController delegate, String name, MetricsRegistry registry) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("DeviceController cannot be null");
+        }
+        if (registry == null) {
+            throw new IllegalArgumentException("MetricsRegistry cannot be null");
+        }
+        this.delegate = delegate;
+        String prefix = "controller." + name + ".";
+        this.powerOn = registry.histogram(prefix + "powerOn");
+        this.powerOff = registry.histogram(prefix + "powerOff");
+        this.send = registry.histogram(prefix + "send");
+        this.failures = registry.counter(prefix + "failures");
+    }
+
+    @Override
+    public void powerOn(String deviceName) {
+        long start = System.nanoTime();
+        try {
+            delegate.powerOn(deviceName);
+        } catch (RuntimeException ex) {
+            failures.increment();
+            throw ex;
+        } finally {
+            finish(powerOn, start);
+        }
+    }
+
+    @Override
+    public void powerOff(String deviceName) {
+        long start = System.nanoTime();
+        try {
+            delegate.powerOff(deviceName);
+        } catch (RuntimeException ex) {
+            failures.increment();
+            throw ex;
+        } finally {
+            finish(powerOff, start);
+        }
+    }
+
+    @Override
+    public void send(String deviceName, String payload) {
+        long start = System.nanoTime();
+        try {
+            delegate.send(deviceName, payload);
+        } catch (RuntimeException ex) {
+            failures.increment();
+            throw ex;
+        } finally {
+            finish(send, start);
+        }
+    }
+
+    //keeps typed commands typed for delegates with a binary wire
+    @Override
+    public void send(String deviceName, Command command) {
+        long start = System.nanoTime();
+        try {
+            delegate.send(deviceName, command);
+        } catch (RuntimeException ex) {
+            failures.increment();
+            throw ex;
+        } finally {
+            finish(send, start);
+        }
+    }
+
+    @Override
+    public void sendBatch(String deviceName, List<Command> commands) {
+        long start = System.nanoTime();
+        try {
+            delegate.sendBatch(deviceName, commands);
+        } catch (RuntimeException ex) {
+            failures.increment();
+            throw ex;
+        } finally {
+            finish(send, start);
+        }
+    }
+
+    public DeviceController getDelegate() {
+        return delegate;
+    }
+
+    private static void finish(LatencyHistogram operation, long start) {
+        operation.record(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,43 @@
+package smarthome.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//named counters and histograms; lookups are lock-free and callers should keep the returned
+//instance in a field instead of looking it up on every call
+public class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(checked(name), n -> new Counter());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(checked(name), n -> new LatencyHistogram());
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.get()));
+        Map<String, HistogramSnapshot> histogramValues = new TreeMap<>();
+        histograms.forEach((name, histogram) -> histogramValues.put(name, histogram.snapshot()));
+        return new MetricsSnapshot(System.currentTimeMillis(), counterValues, histogramValues);
+    }
+
+    private static String checked(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Metric name cannot be empty");
+        }
+        return name;
+    }
+}
@@ -0,0 +1,36 @@
+package smarthome.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+//point-in-time copy of a registry; maps are sorted by metric name
+public record MetricsSnapshot(long takenAtMillis, Map<String, Long> counters,
+                              Map<String, HistogramSnapshot> histograms) {
+
+    //the n histograms under a prefix with the highest p99, e.g. slowest("device.", 10)
+    public List<Map.Entry<String, HistogramSnapshot>> slowest(String prefix, int n) {
+        List<Map.Entry<String, HistogramSnapshot>> matches = new ArrayList<>();
+        for (Map.Entry<String, HistogramSnapshot> entry : histograms.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator.comparingLong((Map.Entry<String, HistogramSnapshot> e) -> e.getValue().p99())
+            .reversed());
+        return matches.subList(0, Math.min(n, matches.size()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            out.append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+        }
+        for (Map.Entry<String, HistogramSnapshot> entry : histograms.entrySet()) {
+            out.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        return out.toString();
+    }
+}
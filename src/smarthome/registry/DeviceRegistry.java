@@ -0,0 +1,186 @@
+package smarthome.registry;
+
+import smarthome.controllers.DeviceController;
+import smarthome.decorators.DecoratorChain;
+import smarthome.devices.Device;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//devices by stable numeric id, with secondary indexes by type, room, controller and decorator
+//all maps are concurrent so lookups never block registration
+public class DeviceRegistry {
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<Integer, RegisteredDevice> byId = new ConcurrentHashMap<>();
+    private final Map<String, Integer> byKey = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> typeIndex = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> roomIndex = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> decoratorIndex = new ConcurrentHashMap<>();
+    //controllers have no equals(), so ids are grouped per controller instance
+    private final Map<ControllerKey, Set<Integer>> controllerIndex = new ConcurrentHashMap<>();
+
+    public int register(Device device, String room) {
+        return register(null, device, room);
+    }
+
+    //key is an optional unique alias such as "light"
+    public int register(String key, Device device, String room) {
+        if (device == null) {
+            throw new IllegalArgumentException("Device cannot be null");
+        }
+        if (room == null || room.isBlank()) {
+            throw new IllegalArgumentException("Room cannot be empty");
+        }
+
+        DecoratorChain chain = DecoratorChain.of(device);
+        int id = nextId.getAndIncrement();
+        if (key != null && byKey.putIfAbsent(key, id) != null) {
+            throw new IllegalArgumentException("Key already registered: " + key);
+        }
+
+        RegisteredDevice entry = new RegisteredDevice(id, key, device,
+            chain.core().getClass().getSimpleName(), room, device.getController(), chain.names());
+        byId.put(id, entry);
+        index(typeIndex, entry.type(), id);
+        index(roomIndex, room, id);
+        for (String decorator : entry.decorators()) {
+            index(decoratorIndex, decorator, id);
+        }
+        if (entry.controller() != null) {
+            index(controllerIndex, new ControllerKey(entry.controller()), id);
+        }
+        return id;
+    }
+
+    public boolean unregister(int id) {
+        RegisteredDevice entry = byId.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.key() != null) {
+            byKey.remove(entry.key(), id);
+        }
+        unindex(typeIndex, entry.type(), id);
+        unindex(roomIndex, entry.room(), id);
+        for (String decorator : entry.decorators()) {
+            unindex(decoratorIndex, decorator, id);
+        }
+        if (entry.controller() != null) {
+            unindex(controllerIndex, new ControllerKey(entry.controller()), id);
+        }
+        return true;
+    }
+
+    public RegisteredDevice get(int id) {
+        return byId.get(id);
+    }
+
+    public Device get(String key) {
+        Integer id = byKey.get(key);
+        RegisteredDevice entry = id == null ? null : byId.get(id);
+        return entry == null ? null : entry.device();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    //all entries in id order
+    public List<RegisteredDevice> all() {
+        List<RegisteredDevice> entries = new ArrayList<>(byId.values());
+        entries.sort(Comparator.comparingInt(RegisteredDevice::id));
+        return entries;
+    }
+
+    public List<Device> byType(String type) {
+        return devices(typeIndex.get(type));
+    }
+
+    public List<Device> byRoom(String room) {
+        return devices(roomIndex.get(room));
+    }
+
+    public List<Device> byDecorator(String decorator) {
+        return devices(decoratorIndex.get(decorator));
+    }
+
+    public List<Device> byController(DeviceController controller) {
+        return devices(controllerIndex.get(new ControllerKey(controller)));
+    }
+
+    //e.g. find("Light", "kitchen"): walks the smaller index and checks the other one
+    public List<Device> find(String type, String room) {
+        Set<Integer> types = typeIndex.get(type);
+        Set<Integer> rooms = roomIndex.get(room);
+        if (types == null || rooms == null) {
+            return List.of();
+        }
+        Set<Integer> smaller = types.size() <= rooms.size() ? types : rooms;
+        Set<Integer> larger = smaller == types ? rooms : types;
+        List<Device> result = new ArrayList<>();
+        for (Integer id : smaller) {
+            RegisteredDevice entry = larger.contains(id) ? byId.get(id) : null;
+            if (entry != null) {
+                result.add(entry.device());
+            }
+        }
+        return result;
+    }
+
+    public Set<String> types() {
+        return Set.copyOf(typeIndex.keySet());
+    }
+
+    public Set<String> rooms() {
+        return Set.copyOf(roomIndex.keySet());
+    }
+
+    private List<Device> devices(Set<Integer> ids) {
+        if (ids == null) {
+            return List.of();
+        }
+        List<Device> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            RegisteredDevice entry = byId.get(id);
+            if (entry != null) {
+                result.add(entry.device());
+            }
+        }
+        return result;
+    }
+
+    //add and remove run inside the map's per-key compute, so a set is dropped once empty
+    //and a concurrent register never adds to a set that was just dropped
+    private static <K> void index(Map<K, Set<Integer>> index, K value, int id) {
+        index.compute(value, (v, ids) -> {
+            Set<Integer> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            result.add(id);
+            return result;
+        });
+    }
+
+    private static <K> void unindex(Map<K, Set<Integer>> index, K value, int id) {
+        index.computeIfPresent(value, (v, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    //identity key, so the controller index can be a ConcurrentHashMap like the others
+    private record ControllerKey(DeviceController controller) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ControllerKey key && key.controller == controller;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(controller);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package smarthome.registry;
+
+import smarthome.controllers.DeviceController;
+import smarthome.devices.Device;
+
+import java.util.List;
+
+//registry entry; id is dense and never reused while the registry lives
+public record RegisteredDevice(int id, String key, Device device, String type, String room,
+                               DeviceController controller, List<String> decorators) {
+}
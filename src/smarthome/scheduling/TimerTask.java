@@ -0,0 +1,38 @@
+package smarthome.scheduling;
+
+import java.time.Instant;
+import java.time.LocalTime;
+
+//handle of a task registered with a TimerWheel
+public final class TimerTask {
+    final Runnable task;
+    final LocalTime dailyAt;
+    final long periodMillis;
+    volatile long deadlineMillis;
+    long deadlineTick;
+    private volatile boolean cancelled;
+
+    TimerTask(Runnable task, long deadlineMillis, LocalTime dailyAt, long periodMillis) {
+        this.task = task;
+        this.deadlineMillis = deadlineMillis;
+        this.dailyAt = dailyAt;
+        this.periodMillis = periodMillis;
+    }
+
+    //the wheel drops cancelled tasks the next time it visits their bucket
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isRecurring() {
+        return dailyAt != null || periodMillis > 0;
+    }
+
+    public Instant nextFireTime() {
+        return Instant.ofEpochMilli(deadlineMillis);
+    }
+}
@@ -0,0 +1,235 @@
+package smarthome.scheduling;
+
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//hashed timer wheel: O(1) insert and cancel, one dispatcher thread for any number of tasks
+//due tasks are handed to a worker executor so a slow device never delays the wheel
+//time comes from a java.time.Clock and advance() can be driven by hand, which keeps it testable
+public class TimerWheel implements AutoCloseable {
+    private static final Logger LOG = Log.getLogger(TimerWheel.class);
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final int mask;
+    private final Executor workers;
+    private final long startMillis;
+
+    //buckets are only touched by the thread calling advance(); other threads go through pending
+    private final ArrayDeque<TimerTask>[] buckets;
+    private final Queue<TimerTask> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private long processedTick;
+
+    private volatile Thread dispatcher;
+    private volatile boolean running;
+
+    public TimerWheel() {
+        this(Clock.systemDefaultZone(), DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public TimerWheel(Executor workers) {
+        this(Clock.systemDefaultZone(), DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, workers);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(Clock clock, long tickMillis, int wheelSize, Executor workers) {
+        if (clock == null || workers == null) {
+            throw new IllegalArgumentException("Clock and executor cannot be null");
+        }
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.workers = workers;
+        this.startMillis = clock.millis();
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    public TimerTask schedule(Runnable task, Duration delay) {
+        return add(new TimerTask(requireTask(task), clock.millis() + Math.max(0, delay.toMillis()), null, 0));
+    }
+
+    public TimerTask scheduleAt(Runnable task, Instant when) {
+        return add(new TimerTask(requireTask(task), when.toEpochMilli(), null, 0));
+    }
+
+    //fires every day at the given local time of the wheel's clock zone
+    public TimerTask scheduleDaily(LocalTime time, Runnable task) {
+        return add(new TimerTask(requireTask(task), nextDaily(time), time, 0));
+    }
+
+    //fires after initialDelay and then once per period; runs missed while the wheel was stalled are skipped
+    public TimerTask scheduleAtFixedRate(Runnable task, Duration initialDelay, Duration period) {
+        if (period.toMillis() <= 0) {
+            throw new IllegalArgumentException("period must be at least one millisecond");
+        }
+        return add(new TimerTask(requireTask(task), clock.millis() + Math.max(0, initialDelay.toMillis()),
+            null, period.toMillis()));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    //moves the wheel up to the clock's current time and dispatches every due task
+    public synchronized int advance() {
+        long nowMillis = clock.millis();
+        long nowTick = tickOf(nowMillis);
+
+        TimerTask added;
+        while ((added = pending.poll()) != null) {
+            place(added);
+        }
+
+        int fired = 0;
+        long ticks = nowTick - processedTick;
+        if (ticks > mask) {
+            //clock jumped past a whole revolution, every bucket has to be looked at once
+            for (ArrayDeque<TimerTask> bucket : buckets) {
+                fired += expire(bucket, nowTick);
+            }
+        } else {
+            for (long tick = processedTick + 1; tick <= nowTick; tick++) {
+                fired += expire(buckets[(int) (tick & mask)], nowTick);
+            }
+        }
+        processedTick = Math.max(processedTick, nowTick);
+        return fired;
+    }
+
+    //starts the single dispatcher thread that calls advance() once per tick
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(() -> {
+            while (running) {
+                try {
+                    advance();
+                } catch (RuntimeException ex) {
+                    //the dispatcher is the only thread driving the wheel, it must outlive any failure
+                    LOG.warn("[TimerWheel] advance failed: {}", ex.toString());
+                }
+                try {
+                    Thread.sleep(tickMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }, "timer-wheel");
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread thread = dispatcher;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private TimerTask add(TimerTask task) {
+        size.incrementAndGet();
+        pending.add(task);
+        return task;
+    }
+
+    private void place(TimerTask task) {
+        if (task.isCancelled()) {
+            size.decrementAndGet();
+            return;
+        }
+        //overdue tasks go into the next bucket and fire on the coming advance
+        task.deadlineTick = Math.max(tickOf(task.deadlineMillis), processedTick + 1);
+        buckets[(int) (task.deadlineTick & mask)].add(task);
+    }
+
+    private int expire(ArrayDeque<TimerTask> bucket, long nowTick) {
+        int fired = 0;
+        Iterator<TimerTask> it = bucket.iterator();
+        while (it.hasNext()) {
+            TimerTask task = it.next();
+            if (task.isCancelled()) {
+                it.remove();
+                size.decrementAndGet();
+            } else if (task.deadlineTick <= nowTick) {
+                it.remove();
+                size.decrementAndGet();
+                try {
+                    workers.execute(task.task);
+                    fired++;
+                } catch (RuntimeException ex) {
+                    //a rejected or failing run is lost, but periodic and daily tasks are still re-armed
+                    LOG.warn("[TimerWheel] task failed to run: {}", ex.toString());
+                }
+                if (task.dailyAt != null) {
+                    task.deadlineMillis = nextDaily(task.dailyAt);
+                    add(task);
+                } else if (task.periodMillis > 0) {
+                    task.deadlineMillis = nextPeriod(task.deadlineMillis, task.periodMillis);
+                    add(task);
+                }
+            }
+        }
+        return fired;
+    }
+
+    private long tickOf(long millis) {
+        return Math.max(0, (millis - startMillis) / tickMillis);
+    }
+
+    private long nextDaily(LocalTime time) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime next = now.with(time);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        return next.toInstant().toEpochMilli();
+    }
+
+    private long nextPeriod(long lastDeadline, long period) {
+        long next = lastDeadline + period;
+        long now = clock.millis();
+        if (next <= now) {
+            next += ((now - next) / period + 1) * period;
+        }
+        return next;
+    }
+
+    private static Runnable requireTask(Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        return task;
+    }
+}
@@ -0,0 +1,8 @@
+package smarthome.telemetry;
+
+import smarthome.devices.Device;
+
+//one status field that differs from the previous sample; previous is null for fields seen the first time,
+//current is null for fields the device no longer reports
+public record FieldChange(Device device, String field, Object previous, Object current, long sampledAtMillis) {
+}
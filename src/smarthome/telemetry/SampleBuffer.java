@@ -0,0 +1,62 @@
+package smarthome.telemetry;
+
+import smarthome.devices.StatusSink;
+
+import java.util.Arrays;
+
+//reusable StatusSink: fields land in flat arrays, so a sample that finds no change allocates nothing
+//booleans are stored as 0/1 with a flag so they can be reported back as Boolean
+final class SampleBuffer implements StatusSink {
+    String[] keys = new String[4];
+    int[] values = new int[4];
+    boolean[] bools = new boolean[4];
+    int size;
+
+    void reset() {
+        size = 0;
+    }
+
+    @Override
+    public void begin(String name, String type) {
+    }
+
+    @Override
+    public void intField(String key, int value) {
+        add(key, value, false);
+    }
+
+    @Override
+    public void boolField(String key, boolean value) {
+        add(key, value ? 1 : 0, true);
+    }
+
+    //decorators never change at runtime, there is nothing to sample
+    @Override
+    public void decorator(String decoratorName) {
+    }
+
+    Object valueAt(int i) {
+        return bools[i] ? (Object) (values[i] != 0) : (Object) values[i];
+    }
+
+    int indexOf(String key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void add(String key, int value, boolean bool) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            bools = Arrays.copyOf(bools, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        bools[size] = bool;
+        size++;
+    }
+}
@@ -0,0 +1,292 @@
+package smarthome.telemetry;
+
+import smarthome.devices.Device;
+import smarthome.logging.Log;
+import smarthome.logging.Logger;
+import smarthome.scheduling.TimerTask;
+import smarthome.scheduling.TimerWheel;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//polls device status on a TimerWheel and pushes only the fields that changed to subscribers
+//devices with the same interval are dealt round robin into slots; slot i starts i/slots of an
+//interval late, so a fleet is polled as an even trickle instead of all at once
+//status is read through Device.writeStatus, the allocation-free form of status(), into one reused
+//buffer per slot and compared with the previous values kept per device
+//an interval's slots stay on the wheel only while the interval has devices
+public class TelemetrySampler implements AutoCloseable {
+    public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(5);
+    public static final int DEFAULT_SLOTS = 16;
+
+    private static final Logger LOG = Log.getLogger(TelemetrySampler.class);
+
+    private final TimerWheel wheel;
+    private final Duration defaultInterval;
+    private final int slotsPerInterval;
+    private final Map<Long, Group> groups = new ConcurrentHashMap<>();
+    private final Map<Device, Tracked> tracked = new ConcurrentHashMap<>();
+    private final List<TelemetrySubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder changes = new LongAdder();
+    private final LongAdder skippedRounds = new LongAdder();
+    private volatile boolean closed;
+
+    public TelemetrySampler(TimerWheel wheel) {
+        this(wheel, DEFAULT_INTERVAL, DEFAULT_SLOTS);
+    }
+
+    public TelemetrySampler(TimerWheel wheel, Duration defaultInterval, int slotsPerInterval) {
+        if (wheel == null || defaultInterval == null) {
+            throw new IllegalArgumentException("Timer wheel and interval cannot be null");
+        }
+        if (defaultInterval.toMillis() <= 0 || slotsPerInterval <= 0) {
+            throw new IllegalArgumentException("Interval and slot count must be positive");
+        }
+        this.wheel = wheel;
+        this.defaultInterval = defaultInterval;
+        this.slotsPerInterval = slotsPerInterval;
+    }
+
+    public void subscribe(TelemetrySubscriber subscriber) {
+        if (subscriber == null) {
+            throw new IllegalArgumentException("Subscriber cannot be null");
+        }
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(TelemetrySubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public void add(Device device) {
+        add(device, defaultInterval);
+    }
+
+    //the first sample only records a baseline; changes are published from the second one on
+    public void add(Device device, Duration interval) {
+        if (device == null) {
+            throw new IllegalArgumentException("Device cannot be null");
+        }
+        if (interval == null || interval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        if (closed) {
+            throw new IllegalStateException("Sampler is closed");
+        }
+        Tracked entry = new Tracked(device, interval.toMillis());
+        if (tracked.putIfAbsent(device, entry) != null) {
+            throw new IllegalArgumentException("Device already sampled: " + device.getName());
+        }
+        //add and the empty check in remove() run under the map's per-key lock,
+        //so a device never lands in a group whose slots were just cancelled
+        groups.compute(entry.intervalMillis, (millis, group) -> {
+            Group target = group != null ? group : new Group(Duration.ofMillis(millis));
+            target.add(entry);
+            return target;
+        });
+    }
+
+    public boolean remove(Device device) {
+        Tracked entry = tracked.remove(device);
+        if (entry == null) {
+            return false;
+        }
+        entry.removed = true;
+        groups.computeIfPresent(entry.intervalMillis, (millis, group) -> {
+            if (--group.members > 0) {
+                return group;
+            }
+            group.cancel();
+            return null;
+        });
+        return true;
+    }
+
+    //intervals that currently have slots on the wheel
+    public int intervalCount() {
+        return groups.size();
+    }
+
+    public int size() {
+        return tracked.size();
+    }
+
+    public long sampleCount() {
+        return samples.sum();
+    }
+
+    public long changeCount() {
+        return changes.sum();
+    }
+
+    //rounds skipped because the previous round of the same slot was still running
+    public long skippedRounds() {
+        return skippedRounds.sum();
+    }
+
+    //samples every device once on the calling thread, e.g. right before an export
+    public void sampleAll() {
+        SampleBuffer buffer = new SampleBuffer();
+        for (Tracked entry : tracked.values()) {
+            synchronized (entry) {
+                sample(entry, buffer);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Group group : groups.values()) {
+            group.cancel();
+        }
+    }
+
+    private void sample(Tracked entry, SampleBuffer buffer) {
+        buffer.reset();
+        try {
+            entry.device.writeStatus(buffer);
+        } catch (RuntimeException ex) {
+            LOG.warn("[Telemetry] sampling {} failed: {}", entry.device.getName(), ex.getMessage());
+            return;
+        }
+        samples.increment();
+
+        if (entry.keys == null) {
+            entry.remember(buffer);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (Arrays.equals(entry.keys, 0, entry.keys.length, buffer.keys, 0, buffer.size)) {
+            for (int i = 0; i < buffer.size; i++) {
+                if (buffer.values[i] != entry.values[i] || buffer.bools[i] != entry.bools[i]) {
+                    publish(new FieldChange(entry.device, buffer.keys[i], entry.valueAt(i), buffer.valueAt(i), now));
+                    entry.values[i] = buffer.values[i];
+                    entry.bools[i] = buffer.bools[i];
+                }
+            }
+            return;
+        }
+        //fields were added, removed or reordered: match by key and start over from this sample
+        for (int i = 0; i < buffer.size; i++) {
+            int j = entry.indexOf(buffer.keys[i]);
+            if (j < 0) {
+                publish(new FieldChange(entry.device, buffer.keys[i], null, buffer.valueAt(i), now));
+            } else if (buffer.values[i] != entry.values[j] || buffer.bools[i] != entry.bools[j]) {
+                publish(new FieldChange(entry.device, buffer.keys[i], entry.valueAt(j), buffer.valueAt(i), now));
+            }
+        }
+        for (int j = 0; j < entry.keys.length; j++) {
+            if (buffer.indexOf(entry.keys[j]) < 0) {
+                publish(new FieldChange(entry.device, entry.keys[j], entry.valueAt(j), null, now));
+            }
+        }
+        entry.remember(buffer);
+    }
+
+    private void publish(FieldChange change) {
+        changes.increment();
+        for (TelemetrySubscriber subscriber : subscribers) {
+            try {
+                subscriber.onChange(change);
+            } catch (RuntimeException ex) {
+                LOG.warn("[Telemetry] subscriber failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    //devices polled at one interval, split over phase-shifted slots
+    private final class Group {
+        private final Slot[] slots = new Slot[slotsPerInterval];
+        private final AtomicInteger next = new AtomicInteger();
+        //devices in the group, only changed inside groups.compute()
+        int members;
+
+        Group(Duration interval) {
+            long step = Math.max(1, interval.toMillis() / slotsPerInterval);
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = new Slot();
+                slots[i].task = wheel.scheduleAtFixedRate(slots[i]::run, Duration.ofMillis(step * i), interval);
+            }
+        }
+
+        void add(Tracked entry) {
+            slots[Math.floorMod(next.getAndIncrement(), slots.length)].devices.add(entry);
+            members++;
+        }
+
+        void cancel() {
+            for (Slot slot : slots) {
+                slot.task.cancel();
+            }
+        }
+    }
+
+    private final class Slot {
+        final Queue<Tracked> devices = new ConcurrentLinkedQueue<>();
+        final SampleBuffer buffer = new SampleBuffer();
+        final AtomicBoolean running = new AtomicBoolean();
+        TimerTask task;
+
+        void run() {
+            if (!running.compareAndSet(false, true)) {
+                skippedRounds.increment();
+                return;
+            }
+            try {
+                devices.removeIf(entry -> entry.removed);
+                for (Tracked entry : devices) {
+                    synchronized (entry) {
+                        sample(entry, buffer);
+                    }
+                }
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    //last seen values of one device
+    private static final class Tracked {
+        final Device device;
+        final long intervalMillis;
+        String[] keys;
+        int[] values;
+        boolean[] bools;
+        volatile boolean removed;
+
+        Tracked(Device device, long intervalMillis) {
+            this.device = device;
+            this.intervalMillis = intervalMillis;
+        }
+
+        void remember(SampleBuffer buffer) {
+            keys = Arrays.copyOf(buffer.keys, buffer.size);
+            values = Arrays.copyOf(buffer.values, buffer.size);
+            bools = Arrays.copyOf(buffer.bools, buffer.size);
+        }
+
+        Object valueAt(int i) {
+            return bools[i] ? (Object) (values[i] != 0) : (Object) values[i];
+        }
+
+        int indexOf(String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package smarthome.telemetry;
+
+//called on a sampler worker thread for every changed field; keep it short or hand off
+@FunctionalInterface
+public interface TelemetrySubscriber {
+    void onChange(FieldChange change);
+}
@@ -0,0 +1,32 @@
+package smarthome.util;
+
+import smarthome.devices.Device;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+//binary counterpart of StatusExporter, see BinarySnapshotFormat for the layout
+public class BinarySnapshotExporter {
+
+    public static void exportDevices(List<Device> devices, Path path) throws IOException {
+        List<DeviceSnapshot> snapshots = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            snapshots.add(DeviceSnapshot.of(device));
+        }
+        exportSnapshots(snapshots, path);
+
+        System.out.println("\n Device statuses exported (binary) to: " + path.toAbsolutePath());
+        System.out.println("   Total devices: " + devices.size());
+    }
+
+    public static void exportSnapshots(List<DeviceSnapshot> snapshots, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            BinarySnapshotFormat.write(snapshots, out);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package smarthome.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//layout of the binary snapshot file (version 1, big endian):
+//  int magic 'SHSB', short version
+//  int stringCount, stringCount x UTF string    -> shared table for names, types and decorators
+//  int deviceCount, then per device:
+//    int nameIdx, int typeIdx, byte decoratorCount, decoratorCount x int decoratorIdx,
+//    byte fieldMask (DeviceSnapshot bits), then the present fields in bit order:
+//    brightness int, target int, armed byte, power int, volume int, locked byte
+final class BinarySnapshotFormat {
+    static final int MAGIC = 0x53485342;
+    static final short VERSION = 1;
+
+    private BinarySnapshotFormat() {
+    }
+
+    static void write(List<DeviceSnapshot> snapshots, DataOutputStream out) throws IOException {
+        Map<String, Integer> index = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (DeviceSnapshot snapshot : snapshots) {
+            //a null would otherwise round-trip as the literal string "null"
+            if (snapshot.getName() == null || snapshot.getType() == null) {
+                throw new IOException("Snapshot name and type cannot be null");
+            }
+            intern(snapshot.getName(), index, strings);
+            intern(snapshot.getType(), index, strings);
+            for (String decorator : snapshot.getDecorators()) {
+                if (decorator == null) {
+                    throw new IOException("Decorator name cannot be null on " + snapshot.getName());
+                }
+                intern(decorator, index, strings);
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+
+        out.writeInt(snapshots.size());
+        for (DeviceSnapshot snapshot : snapshots) {
+            out.writeInt(index.get(snapshot.getName()));
+            out.writeInt(index.get(snapshot.getType()));
+            List<String> decorators = snapshot.getDecorators();
+            if (decorators.size() > 255) {
+                throw new IOException("Too many decorators on " + snapshot.getName());
+            }
+            out.writeByte(decorators.size());
+            for (String decorator : decorators) {
+                out.writeInt(index.get(decorator));
+            }
+            out.writeByte(snapshot.fields());
+            if (snapshot.has(DeviceSnapshot.BRIGHTNESS)) out.writeInt(snapshot.getBrightness());
+            if (snapshot.has(DeviceSnapshot.TARGET)) out.writeInt(snapshot.getTarget());
+            if (snapshot.has(DeviceSnapshot.ARMED)) out.writeBoolean(snapshot.isArmed());
+            if (snapshot.has(DeviceSnapshot.POWER)) out.writeInt(snapshot.getPower());
+            if (snapshot.has(DeviceSnapshot.VOLUME)) out.writeInt(snapshot.getVolume());
+            if (snapshot.has(DeviceSnapshot.LOCKED)) out.writeBoolean(snapshot.isLocked());
+        }
+    }
+
+    static List<DeviceSnapshot> read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary device snapshot");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+
+        //counts come from the file, so presize from them only up to a bound
+        int stringCount = count(in.readInt(), "string");
+        List<String> table = new ArrayList<>(Math.min(stringCount, 4096));
+        for (int i = 0; i < stringCount; i++) {
+            table.add(in.readUTF());
+        }
+        String[] strings = table.toArray(new String[0]);
+
+        int count = count(in.readInt(), "device");
+        List<DeviceSnapshot> snapshots = new ArrayList<>(Math.min(count, 4096));
+        for (int i = 0; i < count; i++) {
+            DeviceSnapshot snapshot = new DeviceSnapshot();
+            snapshot.setName(string(strings, in.readInt()));
+            snapshot.setType(string(strings, in.readInt()));
+            int decorators = in.readUnsignedByte();
+            for (int d = 0; d < decorators; d++) {
+                snapshot.addDecorator(string(strings, in.readInt()));
+            }
+            int fields = in.readUnsignedByte();
+            if ((fields & DeviceSnapshot.BRIGHTNESS) != 0) snapshot.setBrightness(in.readInt());
+            if ((fields & DeviceSnapshot.TARGET) != 0) snapshot.setTarget(in.readInt());
+            if ((fields & DeviceSnapshot.ARMED) != 0) snapshot.setArmed(in.readBoolean());
+            if ((fields & DeviceSnapshot.POWER) != 0) snapshot.setPower(in.readInt());
+            if ((fields & DeviceSnapshot.VOLUME) != 0) snapshot.setVolume(in.readInt());
+            if ((fields & DeviceSnapshot.LOCKED) != 0) snapshot.setLocked(in.readBoolean());
+            snapshots.add(snapshot);
+        }
+        return snapshots;
+    }
+
+    private static int count(int count, String what) throws IOException {
+        if (count < 0) {
+            throw new IOException("Corrupt snapshot: negative " + what + " count " + count);
+        }
+        return count;
+    }
+
+    private static String string(String[] strings, int index) throws IOException {
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("Corrupt snapshot: string index " + index + " out of range (table has " + strings.length + ")");
+        }
+        return strings[index];
+    }
+
+    private static void intern(String s, Map<String, Integer> index, List<String> strings) {
+        if (!index.containsKey(s)) {
+            index.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package smarthome.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//binary counterpart of StatusImporter, numbers come back as Integer instead of Double
+public class BinarySnapshotImporter {
+
+    public static List<Map<String, Object>> importSnapshots(Path path) throws IOException {
+        List<DeviceSnapshot> typed = importTypedSnapshots(path);
+        List<Map<String, Object>> snapshots = new ArrayList<>(typed.size());
+        for (DeviceSnapshot snapshot : typed) {
+            snapshots.add(snapshot.toMap());
+        }
+
+        System.out.println("\n Device snapshots imported (binary) from: " + path.toAbsolutePath());
+        System.out.println("   Total snapshots: " + snapshots.size());
+        return snapshots;
+    }
+
+    public static List<DeviceSnapshot> importTypedSnapshots(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return BinarySnapshotFormat.read(in);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package smarthome.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import smarthome.devices.Device;
+import smarthome.registry.DeviceRegistry;
+import smarthome.registry.RegisteredDevice;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+//append-only log of status changes on top of a full JSON snapshot
+//devices are keyed by a stable id chosen by the caller, not by name: several devices share a name
+//each checkpoint writes one line per changed device: {"id":"hall-light","changes":{"brightness":40},"removed":["mode"]}
+//deltas hold absolute values, so replaying a delta that was already folded into the snapshot is harmless
+public class DeltaSnapshotLog implements Closeable {
+    public static final int DEFAULT_COMPACT_EVERY = 1000;
+    //snapshot records carry their device id in this field next to the status
+    public static final String ID_FIELD = "deviceId";
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final int compactEvery;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //last state written per device id, the base for the next diff
+    private final Map<String, Map<String, Object>> lastKnown = new LinkedHashMap<>();
+    private BufferedWriter log;
+    private int records;
+    private Future<?> compaction;
+
+    public DeltaSnapshotLog(Path snapshotPath, Path logPath) throws IOException {
+        this(snapshotPath, logPath, DEFAULT_COMPACT_EVERY);
+    }
+
+    public DeltaSnapshotLog(Path snapshotPath, Path logPath, int compactEvery) throws IOException {
+        if (compactEvery <= 0) {
+            throw new IllegalArgumentException("compactEvery must be positive");
+        }
+        this.snapshotPath = snapshotPath;
+        this.logPath = logPath;
+        this.compactEvery = compactEvery;
+        Recovery recovery = replay(snapshotPath, logPath);
+        lastKnown.putAll(recovery.state());
+        this.records = recovery.records();
+        //cut a torn last line off, otherwise the next delta would be appended onto it
+        if (Files.exists(logPath) && Files.size(logPath) > recovery.validLength()) {
+            try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+                channel.truncate(recovery.validLength());
+            }
+        }
+        this.log = openLog();
+        if (recovery.missingNewline()) {
+            log.newLine();
+            log.flush();
+        }
+    }
+
+    //every registered device under its key, or "#<id>" when it was registered without one
+    public int checkpoint(DeviceRegistry registry) throws IOException {
+        Map<String, Device> devices = new LinkedHashMap<>();
+        for (RegisteredDevice entry : registry.all()) {
+            devices.put(entry.key() != null ? entry.key() : "#" + entry.id(), entry.device());
+        }
+        return checkpoint(devices);
+    }
+
+    //writes only the fields that changed or disappeared since the previous checkpoint
+    //returns the number of changed devices
+    public synchronized int checkpoint(Map<String, ? extends Device> devices) throws IOException {
+        int changedDevices = 0;
+        for (Map.Entry<String, ? extends Device> device : devices.entrySet()) {
+            String id = device.getKey();
+            if (id == null) {
+                throw new IllegalArgumentException("Device id cannot be null");
+            }
+            Map<String, Object> status = device.getValue().status();
+            Map<String, Object> previous = lastKnown.get(id);
+
+            Map<String, Object> changes = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : status.entrySet()) {
+                if (previous == null || !sameValue(previous.get(entry.getKey()), entry.getValue())) {
+                    changes.put(entry.getKey(), entry.getValue());
+                }
+            }
+            List<String> removed = new ArrayList<>();
+            if (previous != null) {
+                for (String key : previous.keySet()) {
+                    if (!status.containsKey(key)) {
+                        removed.add(key);
+                    }
+                }
+            }
+            if (changes.isEmpty() && removed.isEmpty()) {
+                continue;
+            }
+
+            log.write(deltaLine(id, changes, removed));
+            log.newLine();
+            records++;
+            changedDevices++;
+            if (previous == null) {
+                lastKnown.put(id, new HashMap<>(status));
+            } else {
+                previous.putAll(changes);
+                previous.keySet().removeAll(removed);
+            }
+        }
+        log.flush();
+
+        if (records >= compactEvery && (compaction == null || compaction.isDone())) {
+            compactAsync();
+        }
+        return changedDevices;
+    }
+
+    //folds the current state into a fresh full snapshot on the background thread
+    public synchronized Future<?> compactAsync() {
+        Map<String, Map<String, Object>> state = copyState();
+        int folded = records;
+        compaction = compactor.submit(() -> {
+            try {
+                writeSnapshot(state);
+                dropFoldedRecords(folded);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return compaction;
+    }
+
+    public synchronized int pendingRecords() {
+        return records;
+    }
+
+    //full snapshot plus every delta after it, keyed by device id
+    //only the last line may be unreadable (torn by a crash mid-write); anything earlier is corruption
+    public static Map<String, Map<String, Object>> recover(Path snapshotPath, Path logPath) throws IOException {
+        return replay(snapshotPath, logPath).state();
+    }
+
+    //state, number of deltas read and the byte length of the log up to the end of the last good line
+    private record Recovery(Map<String, Map<String, Object>> state, int records, long validLength,
+                            boolean missingNewline) {
+    }
+
+    private static Recovery replay(Path snapshotPath, Path logPath) throws IOException {
+        Map<String, Map<String, Object>> state = new LinkedHashMap<>();
+        if (Files.exists(snapshotPath)) {
+            StatusImporter.streamSnapshots(snapshotPath, snapshot -> {
+                Map<String, Object> status = new HashMap<>(snapshot);
+                Object id = status.remove(ID_FIELD);
+                if (id == null) {
+                    throw new IllegalStateException("Snapshot record without " + ID_FIELD + ": " + snapshot);
+                }
+                state.put(String.valueOf(id), status);
+            });
+        }
+        if (!Files.exists(logPath)) {
+            return new Recovery(state, 0, 0, false);
+        }
+        byte[] bytes = Files.readAllBytes(logPath);
+        int records = 0;
+        long validLength = 0;
+        boolean missingNewline = false;
+        int lineNumber = 0;
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            boolean terminated = end < bytes.length;
+            int next = terminated ? end + 1 : end;
+            lineNumber++;
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8).strip();
+            if (line.isEmpty()) {
+                validLength = next;
+                start = next;
+                continue;
+            }
+            Map<String, Object> changes = new LinkedHashMap<>();
+            List<String> removed = new ArrayList<>();
+            String id;
+            try {
+                id = readDelta(line, changes, removed);
+            } catch (IOException | IllegalStateException ex) {
+                if (isBlankFrom(bytes, next)) {
+                    break;
+                }
+                throw new IOException("Corrupt delta at line " + lineNumber + " of " + logPath, ex);
+            }
+            Map<String, Object> status = state.computeIfAbsent(id, k -> new HashMap<>());
+            status.putAll(changes);
+            status.keySet().removeAll(removed);
+            records++;
+            validLength = next;
+            missingNewline = !terminated;
+            start = next;
+        }
+        return new Recovery(state, records, validLength, missingNewline);
+    }
+
+    private static boolean isBlankFrom(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Future<?> running;
+        synchronized (this) {
+            running = compaction;
+        }
+        if (running != null) {
+            try {
+                running.get(30, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                throw new IOException("Snapshot compaction failed", ex);
+            }
+        }
+        compactor.shutdown();
+        synchronized (this) {
+            log.close();
+        }
+    }
+
+    private void writeSnapshot(Map<String, Map<String, Object>> state) throws IOException {
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(tmp))) {
+            writer.setIndent("  ");
+            writer.beginArray();
+            for (Map.Entry<String, Map<String, Object>> entry : state.entrySet()) {
+                Map<String, Object> record = new LinkedHashMap<>();
+                record.put(ID_FIELD, entry.getKey());
+                record.putAll(entry.getValue());
+                StatusExporter.writeValue(writer, record);
+            }
+            writer.endArray();
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //removes the first n records, which the new snapshot already contains
+    private synchronized void dropFoldedRecords(int folded) throws IOException {
+        log.close();
+        List<String> lines = Files.readAllLines(logPath);
+        List<String> remaining = new ArrayList<>(lines.subList(Math.min(folded, lines.size()), lines.size()));
+        Path tmp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        Files.write(tmp, remaining);
+        Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = remaining.size();
+        log = openLog();
+    }
+
+    private BufferedWriter openLog() throws IOException {
+        return Files.newBufferedWriter(logPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private Map<String, Map<String, Object>> copyState() {
+        Map<String, Map<String, Object>> copy = new LinkedHashMap<>();
+        lastKnown.forEach((id, status) -> copy.put(id, new LinkedHashMap<>(status)));
+        return copy;
+    }
+
+    private static String deltaLine(String id, Map<String, Object> changes, List<String> removed) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("id").value(id);
+            writer.name("changes");
+            StatusExporter.writeValue(writer, changes);
+            if (!removed.isEmpty()) {
+                writer.name("removed");
+                StatusExporter.writeValue(writer, removed);
+            }
+            writer.endObject();
+        }
+        return out.toString();
+    }
+
+    private static String readDelta(String line, Map<String, Object> changes, List<String> removed) throws IOException {
+        String id = null;
+        try (JsonReader reader = new JsonReader(new StringReader(line))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (key.equals("id")) {
+                    id = reader.nextString();
+                } else if (key.equals("changes")) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        changes.put(reader.nextName(), StatusImporter.readValue(reader));
+                    }
+                    reader.endObject();
+                } else if (key.equals("removed")) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        removed.add(reader.nextString());
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        if (id == null) {
+            throw new IOException("Delta without device id: " + line);
+        }
+        return id;
+    }
+
+    //snapshots read back from JSON hold Double where the device reports Integer
+    private static boolean sameValue(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return x.doubleValue() == y.doubleValue();
+        }
+        if (a instanceof List<?> x && b instanceof List<?> y) {
+            if (x.size() != y.size()) {
+                return false;
+            }
+            for (int i = 0; i < x.size(); i++) {
+                if (!Objects.equals(String.valueOf(x.get(i)), String.valueOf(y.get(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.equals(a, b);
+    }
+}
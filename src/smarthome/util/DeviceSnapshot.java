@@ -0,0 +1,198 @@
+package smarthome.util;
+
+import smarthome.devices.Device;
+import smarthome.devices.StatusSink;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//typed form of one exported device status
+//known attributes are kept as primitives, a bit mask records which of them were present
+public final class DeviceSnapshot implements StatusSink {
+    public static final int BRIGHTNESS = 1;
+    public static final int TARGET = 1 << 1;
+    public static final int ARMED = 1 << 2;
+    public static final int POWER = 1 << 3;
+    public static final int VOLUME = 1 << 4;
+    public static final int LOCKED = 1 << 5;
+
+    private String name;
+    private String type;
+    private final List<String> decorators = new ArrayList<>();
+    private int fields;
+    private int brightness;
+    private int target;
+    private boolean armed;
+    private int power;
+    private int volume;
+    private boolean locked;
+
+    public static DeviceSnapshot of(Device device) {
+        DeviceSnapshot snapshot = new DeviceSnapshot();
+        device.writeStatus(snapshot);
+        return snapshot;
+    }
+
+    public static DeviceSnapshot fromStatus(Map<String, Object> status) {
+        DeviceSnapshot snapshot = new DeviceSnapshot();
+        for (Map.Entry<String, Object> entry : status.entrySet()) {
+            Object value = entry.getValue();
+            switch (entry.getKey()) {
+                case "name" -> snapshot.setName(String.valueOf(value));
+                case "type" -> snapshot.setType(String.valueOf(value));
+                case "decorators" -> {
+                    if (value instanceof List<?> raw) {
+                        for (Object x : raw) snapshot.addDecorator(String.valueOf(x));
+                    }
+                }
+                case "brightness" -> snapshot.setBrightness(((Number) value).intValue());
+                case "target" -> snapshot.setTarget(((Number) value).intValue());
+                case "power" -> snapshot.setPower(((Number) value).intValue());
+                case "volume" -> snapshot.setVolume(((Number) value).intValue());
+                case "armed" -> snapshot.setArmed((Boolean) value);
+                case "locked" -> snapshot.setLocked((Boolean) value);
+                default -> { }
+            }
+        }
+        return snapshot;
+    }
+
+    //same shape as Device.status(), numbers as Integer
+    public Map<String, Object> toMap() {
+        Map<String, Object> state = new HashMap<>();
+        state.put("name", name);
+        state.put("type", type);
+        if (has(BRIGHTNESS)) state.put("brightness", brightness);
+        if (has(TARGET)) state.put("target", target);
+        if (has(ARMED)) state.put("armed", armed);
+        if (has(POWER)) state.put("power", power);
+        if (has(VOLUME)) state.put("volume", volume);
+        if (has(LOCKED)) state.put("locked", locked);
+        if (!decorators.isEmpty()) state.put("decorators", new ArrayList<>(decorators));
+        return state;
+    }
+
+    @Override
+    public void begin(String name, String type) {
+        setName(name);
+        setType(type);
+    }
+
+    @Override
+    public void intField(String key, int value) {
+        switch (key) {
+            case "brightness" -> setBrightness(value);
+            case "target" -> setTarget(value);
+            case "power" -> setPower(value);
+            case "volume" -> setVolume(value);
+            default -> { }
+        }
+    }
+
+    @Override
+    public void boolField(String key, boolean value) {
+        switch (key) {
+            case "armed" -> setArmed(value);
+            case "locked" -> setLocked(value);
+            default -> { }
+        }
+    }
+
+    @Override
+    public void decorator(String decoratorName) {
+        addDecorator(decoratorName);
+    }
+
+    public boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    public int fields() {
+        return fields;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public List<String> getDecorators() {
+        return decorators;
+    }
+
+    public void addDecorator(String decorator) {
+        decorators.add(decorator);
+    }
+
+    public int getBrightness() {
+        return brightness;
+    }
+
+    public void setBrightness(int brightness) {
+        this.brightness = brightness;
+        fields |= BRIGHTNESS;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public void setTarget(int target) {
+        this.target = target;
+        fields |= TARGET;
+    }
+
+    public boolean isArmed() {
+        return armed;
+    }
+
+    public void setArmed(boolean armed) {
+        this.armed = armed;
+        fields |= ARMED;
+    }
+
+    public int getPower() {
+        return power;
+    }
+
+    public void setPower(int power) {
+        this.power = power;
+        fields |= POWER;
+    }
+
+    public int getVolume() {
+        return volume;
+    }
+
+    public void setVolume(int volume) {
+        this.volume = volume;
+        fields |= VOLUME;
+    }
+
+    public boolean isLocked() {
+        return locked;
+    }
+
+    public void setLocked(boolean locked) {
+        this.locked = locked;
+        fields |= LOCKED;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
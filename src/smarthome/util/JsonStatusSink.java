@@ -0,0 +1,74 @@
+package smarthome.util;
+
+import com.google.gson.stream.JsonWriter;
+import smarthome.devices.Device;
+import smarthome.devices.StatusSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+//writes a device status straight into a JsonWriter without building the status map
+//one instance is reused for every device of an export
+final class JsonStatusSink implements StatusSink {
+    private final JsonWriter writer;
+    private boolean inDecorators;
+
+    JsonStatusSink(JsonWriter writer) {
+        this.writer = writer;
+    }
+
+    void write(Device device) throws IOException {
+        inDecorators = false;
+        try {
+            writer.beginObject();
+            device.writeStatus(this);
+            if (inDecorators) {
+                writer.endArray();
+            }
+            writer.endObject();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @Override
+    public void begin(String name, String type) {
+        try {
+            writer.name("name").value(name);
+            writer.name("type").value(type);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void intField(String key, int value) {
+        try {
+            writer.name(key).value(value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void boolField(String key, boolean value) {
+        try {
+            writer.name(key).value(value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void decorator(String decoratorName) {
+        try {
+            if (!inDecorators) {
+                writer.name("decorators").beginArray();
+                inDecorators = true;
+            }
+            writer.value(decoratorName);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
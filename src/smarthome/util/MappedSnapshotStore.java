@@ -0,0 +1,279 @@
+package smarthome.util;
+
+import smarthome.devices.Device;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+//snapshot file opened through FileChannel.map for random access by device name
+//names are not unique (every Light is "Light"), so a lookup returns every record with that name
+//layout (big endian):
+//  header:  int magic 'SHSM', short version, short unused, int deviceCount, int typeCount,
+//           long indexOffset, long typeTableOffset
+//  records: grouped by type so one type sits in a contiguous range of pages; each record is
+//           short+bytes name, short+bytes type, byte decoratorCount + (short+bytes) each,
+//           byte fieldMask, fields as in BinarySnapshotFormat
+//  index:   deviceCount x (int nameHash, long recordOffset) sorted by hash
+//  types:   typeCount x (short+bytes type, long firstRecordOffset, int count)
+public class MappedSnapshotStore implements Closeable {
+    static final int MAGIC = 0x5348534D;
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int INDEX_ENTRY_SIZE = 12;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int deviceCount;
+    private final long indexOffset;
+    private final Map<String, long[]> typeRanges = new LinkedHashMap<>();
+
+    private MappedSnapshotStore(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a mapped device snapshot");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        this.deviceCount = buffer.getInt(8);
+        int typeCount = buffer.getInt(12);
+        this.indexOffset = buffer.getLong(16);
+
+        ByteBuffer types = buffer.duplicate();
+        types.position((int) buffer.getLong(24));
+        for (int i = 0; i < typeCount; i++) {
+            String type = readString(types);
+            long first = types.getLong();
+            int count = types.getInt();
+            typeRanges.put(type, new long[] {first, count});
+        }
+    }
+
+    public static void write(List<Device> devices, Path path) throws IOException {
+        List<DeviceSnapshot> snapshots = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            snapshots.add(DeviceSnapshot.of(device));
+        }
+        writeSnapshots(snapshots, path);
+    }
+
+    public static void writeSnapshots(List<DeviceSnapshot> snapshots, Path path) throws IOException {
+        List<DeviceSnapshot> ordered = new ArrayList<>(snapshots);
+        ordered.sort(Comparator.comparing(s -> String.valueOf(s.getType())));
+
+        long[][] index = new long[ordered.size()][];
+        Map<String, long[]> types = new LinkedHashMap<>();
+        long indexOffset;
+        long typeTableOffset;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.write(new byte[HEADER_SIZE]);
+
+            for (int i = 0; i < ordered.size(); i++) {
+                DeviceSnapshot snapshot = ordered.get(i);
+                long offset = out.size();
+                String name = String.valueOf(snapshot.getName());
+                String type = String.valueOf(snapshot.getType());
+                index[i] = new long[] {name.hashCode(), offset};
+                long[] range = types.computeIfAbsent(type, t -> new long[] {offset, 0});
+                range[1]++;
+
+                writeString(out, name);
+                writeString(out, type);
+                if (snapshot.getDecorators().size() > 255) {
+                    throw new IOException("Too many decorators on " + name);
+                }
+                out.writeByte(snapshot.getDecorators().size());
+                for (String decorator : snapshot.getDecorators()) {
+                    writeString(out, decorator);
+                }
+                out.writeByte(snapshot.fields());
+                if (snapshot.has(DeviceSnapshot.BRIGHTNESS)) out.writeInt(snapshot.getBrightness());
+                if (snapshot.has(DeviceSnapshot.TARGET)) out.writeInt(snapshot.getTarget());
+                if (snapshot.has(DeviceSnapshot.ARMED)) out.writeBoolean(snapshot.isArmed());
+                if (snapshot.has(DeviceSnapshot.POWER)) out.writeInt(snapshot.getPower());
+                if (snapshot.has(DeviceSnapshot.VOLUME)) out.writeInt(snapshot.getVolume());
+                if (snapshot.has(DeviceSnapshot.LOCKED)) out.writeBoolean(snapshot.isLocked());
+            }
+
+            indexOffset = out.size();
+            Arrays.sort(index, Comparator.comparingLong((long[] e) -> e[0]).thenComparingLong(e -> e[1]));
+            for (long[] entry : index) {
+                out.writeInt((int) entry[0]);
+                out.writeLong(entry[1]);
+            }
+
+            typeTableOffset = out.size();
+            for (Map.Entry<String, long[]> entry : types.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeInt((int) entry.getValue()[1]);
+            }
+        }
+        //offsets are only known once everything is written, so the header is patched in last
+        writeHeader(path, ordered.size(), types.size(), indexOffset, typeTableOffset);
+    }
+
+    public static MappedSnapshotStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedSnapshotStore(channel, buffer);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public int size() {
+        return deviceCount;
+    }
+
+    public List<String> types() {
+        return List.copyOf(typeRanges.keySet());
+    }
+
+    //binary search over the hash index, then a byte-wise name check on the mapped records
+    //matches come back in file order
+    public List<DeviceSnapshot> findAll(String name) {
+        List<DeviceSnapshot> result = new ArrayList<>();
+        byte[] wanted = name.getBytes(StandardCharsets.UTF_8);
+        int hash = name.hashCode();
+        int lo = 0;
+        int hi = deviceCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midHash = buffer.getInt((int) (indexOffset + (long) mid * INDEX_ENTRY_SIZE));
+            if (midHash < hash) {
+                lo = mid + 1;
+            } else if (midHash > hash) {
+                hi = mid - 1;
+            } else {
+                //walk back to the first entry with this hash, then scan the collisions
+                int i = mid;
+                while (i > 0 && hashAt(i - 1) == hash) {
+                    i--;
+                }
+                for (; i < deviceCount && hashAt(i) == hash; i++) {
+                    int offset = (int) buffer.getLong((int) (indexOffset + (long) i * INDEX_ENTRY_SIZE + 4));
+                    if (nameEquals(offset, wanted)) {
+                        result.add(readRecord(offset));
+                    }
+                }
+                return result;
+            }
+        }
+        return result;
+    }
+
+    //only touches the record range of the given type
+    public int forEachOfType(String type, Consumer<DeviceSnapshot> consumer) {
+        long[] range = typeRanges.get(type);
+        if (range == null) {
+            return 0;
+        }
+        ByteBuffer records = buffer.duplicate();
+        records.position((int) range[0]);
+        for (int i = 0; i < range[1]; i++) {
+            consumer.accept(readRecord(records));
+        }
+        return (int) range[1];
+    }
+
+    public List<DeviceSnapshot> findByType(String type) {
+        List<DeviceSnapshot> result = new ArrayList<>();
+        forEachOfType(type, result::add);
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int hashAt(int entry) {
+        return buffer.getInt((int) (indexOffset + (long) entry * INDEX_ENTRY_SIZE));
+    }
+
+    private boolean nameEquals(int offset, byte[] wanted) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        if (length != wanted.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + 2 + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DeviceSnapshot readRecord(int offset) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset);
+        return readRecord(record);
+    }
+
+    private static DeviceSnapshot readRecord(ByteBuffer in) {
+        DeviceSnapshot snapshot = new DeviceSnapshot();
+        snapshot.setName(readString(in));
+        snapshot.setType(readString(in));
+        int decorators = in.get() & 0xFF;
+        for (int d = 0; d < decorators; d++) {
+            snapshot.addDecorator(readString(in));
+        }
+        int fields = in.get() & 0xFF;
+        if ((fields & DeviceSnapshot.BRIGHTNESS) != 0) snapshot.setBrightness(in.getInt());
+        if ((fields & DeviceSnapshot.TARGET) != 0) snapshot.setTarget(in.getInt());
+        if ((fields & DeviceSnapshot.ARMED) != 0) snapshot.setArmed(in.get() != 0);
+        if ((fields & DeviceSnapshot.POWER) != 0) snapshot.setPower(in.getInt());
+        if ((fields & DeviceSnapshot.VOLUME) != 0) snapshot.setVolume(in.getInt());
+        if ((fields & DeviceSnapshot.LOCKED) != 0) snapshot.setLocked(in.get() != 0);
+        return snapshot;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for snapshot: " + s.substring(0, 32) + "...");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeHeader(Path path, int deviceCount, int typeCount,
+                                    long indexOffset, long typeTableOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+              .putInt(deviceCount).putInt(typeCount)
+              .putLong(indexOffset).putLong(typeTableOffset)
+              .flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+        }
+    }
+}
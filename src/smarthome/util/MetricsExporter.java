@@ -0,0 +1,48 @@
+package smarthome.util;
+
+import com.google.gson.stream.JsonWriter;
+import smarthome.metrics.HistogramSnapshot;
+import smarthome.metrics.MetricsSnapshot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+//writes a MetricsSnapshot as JSON: {"takenAt":..., "counters":{...}, "histograms":{name:{count,mean,p50,...}}}
+public class MetricsExporter {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    public static void exportMetrics(MetricsSnapshot snapshot, Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("takenAt").value(snapshot.takenAtMillis());
+
+            writer.name("counters").beginObject();
+            for (Map.Entry<String, Long> entry : snapshot.counters().entrySet()) {
+                writer.name(entry.getKey()).value(entry.getValue());
+            }
+            writer.endObject();
+
+            writer.name("histograms").beginObject();
+            for (Map.Entry<String, HistogramSnapshot> entry : snapshot.histograms().entrySet()) {
+                HistogramSnapshot histogram = entry.getValue();
+                writer.name(entry.getKey()).beginObject();
+                writer.name("count").value(histogram.count());
+                writer.name("meanNanos").value(Math.round(histogram.mean()));
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    writer.name(PERCENTILE_NAMES[i] + "Nanos").value(histogram.valueAtPercentile(PERCENTILES[i]));
+                }
+                writer.name("maxNanos").value(histogram.max());
+                writer.endObject();
+            }
+            writer.endObject();
+            writer.endObject();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package smarthome.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import smarthome.facade.SceneDefinition;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+//reads scene definitions from a JSON file:
+//[ { "name": "movie", "steps": [ { "device": "light", "action": "brightness", "value": 20 }, ... ] } ]
+//instead of "steps" a scene may list "lanes": [ [ steps... ], [ steps... ] ] that can run in parallel
+public class SceneLoader {
+
+    //any malformed entry is reported as an IOException naming the scene, lane and step
+    public static List<SceneDefinition> load(Path path) throws IOException {
+        JsonElement root;
+        try (Reader reader = Files.newBufferedReader(path)) {
+            root = JsonParser.parseReader(reader);
+        } catch (JsonParseException ex) {
+            throw new IOException("Malformed scene file " + path + ": " + ex.getMessage(), ex);
+        }
+        if (!root.isJsonArray()) {
+            throw new IOException("Scene file must contain a JSON array: " + path);
+        }
+
+        List<SceneDefinition> scenes = new ArrayList<>();
+        int index = 0;
+        for (JsonElement element : root.getAsJsonArray()) {
+            index++;
+            String where = "scene " + index + " in " + path;
+            JsonObject scene = object(element, where);
+            String name = string(scene, "name", where);
+            where = "scene '" + name + "' in " + path;
+            SceneDefinition.Builder builder = SceneDefinition.builder(name);
+
+            JsonArray steps = array(scene.get("steps"), "steps of " + where);
+            if (steps != null) {
+                addSteps(builder, steps, where);
+            }
+            JsonArray lanes = array(scene.get("lanes"), "lanes of " + where);
+            if (lanes != null) {
+                int lane = 0;
+                for (JsonElement laneElement : lanes) {
+                    lane++;
+                    String laneWhere = "lane " + lane + " of " + where;
+                    JsonArray laneSteps = array(laneElement, laneWhere);
+                    if (laneSteps == null) {
+                        throw new IOException("Missing " + laneWhere);
+                    }
+                    builder.lane();
+                    addSteps(builder, laneSteps, laneWhere);
+                }
+            }
+            try {
+                scenes.add(builder.build());
+            } catch (IllegalStateException ex) {
+                throw new IOException(ex.getMessage() + " (" + where + ")", ex);
+            }
+        }
+
+        System.out.println("\n Scenes loaded from: " + path.toAbsolutePath());
+        System.out.println("   Total scenes: " + scenes.size());
+        return scenes;
+    }
+
+    private static void addSteps(SceneDefinition.Builder builder, JsonArray steps, String where) throws IOException {
+        int index = 0;
+        for (JsonElement stepElement : steps) {
+            index++;
+            String stepWhere = "step " + index + " of " + where;
+            JsonObject step = object(stepElement, stepWhere);
+            JsonElement value = step.get("value");
+            if (value != null && !value.isJsonNull() && !value.isJsonPrimitive()) {
+                throw new IOException("'value' must be a string, number or boolean in " + stepWhere);
+            }
+            builder.step(
+                string(step, "device", stepWhere),
+                string(step, "action", stepWhere),
+                value == null || value.isJsonNull() ? null : value.getAsString());
+        }
+    }
+
+    private static JsonObject object(JsonElement element, String where) throws IOException {
+        if (element == null || !element.isJsonObject()) {
+            throw new IOException("Expected an object for " + where);
+        }
+        return element.getAsJsonObject();
+    }
+
+    //null when the element is absent
+    private static JsonArray array(JsonElement element, String where) throws IOException {
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (!element.isJsonArray()) {
+            throw new IOException("Expected an array for " + where);
+        }
+        return element.getAsJsonArray();
+    }
+
+    private static String string(JsonObject object, String key, String where) throws IOException {
+        JsonElement element = object.get(key);
+        if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isString()) {
+            throw new IOException("Missing or non-string '" + key + "' in " + where);
+        }
+        String text = element.getAsString();
+        if (text.isBlank()) {
+            throw new IOException("Empty '" + key + "' in " + where);
+        }
+        return text;
+    }
+}
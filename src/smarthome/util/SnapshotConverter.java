@@ -0,0 +1,35 @@
+package smarthome.util;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+//converts between status.json and the binary snapshot format
+public class SnapshotConverter {
+
+    public static int jsonToBinary(Path json, Path binary) throws IOException {
+        List<DeviceSnapshot> snapshots = new ArrayList<>();
+        StatusImporter.streamTypedSnapshots(json, snapshots::add);
+        BinarySnapshotExporter.exportSnapshots(snapshots, binary);
+        return snapshots.size();
+    }
+
+    public static int binaryToJson(Path binary, Path json, boolean pretty) throws IOException {
+        List<DeviceSnapshot> snapshots = BinarySnapshotImporter.importTypedSnapshots(binary);
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(json))) {
+            if (pretty) {
+                writer.setIndent("  ");
+            }
+            writer.beginArray();
+            for (DeviceSnapshot snapshot : snapshots) {
+                StatusExporter.writeValue(writer, snapshot.toMap());
+            }
+            writer.endArray();
+        }
+        return snapshots.size();
+    }
+}
@@ -2,12 +2,19 @@ package smarthome.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import smarthome.devices.Device;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -17,6 +24,8 @@ public class StatusExporter {
             .setPrettyPrinting()
             .create();
 
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     public static void exportDevices(List<Device> devices, Path path) throws IOException {
         List<Object> statuses = devices.stream()
                 .map(Device::status)
@@ -28,4 +37,56 @@ public class StatusExporter {
         System.out.println("\n Device statuses exported to: " + path.toAbsolutePath());
         System.out.println("   Total devices: " + devices.size());
     }
-}
\ No newline at end of file
+
+    //writes one device at a time through a JsonWriter, memory use does not grow with the fleet size
+    //fields go from Device.writeStatus directly into the writer, no status map is built
+    //the output is the same JSON array as exportDevices, pretty or compact
+    public static long exportDevicesStreaming(Iterable<? extends Device> devices, Path path, boolean pretty)
+            throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             JsonWriter writer = new JsonWriter(new BufferedWriter(
+                     Channels.newWriter(channel, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE))) {
+            if (pretty) {
+                writer.setIndent("  ");
+            }
+            JsonStatusSink sink = new JsonStatusSink(writer);
+            writer.beginArray();
+            for (Device device : devices) {
+                sink.write(device);
+                count++;
+            }
+            writer.endArray();
+        }
+
+        System.out.println("\n Device statuses streamed to: " + path.toAbsolutePath());
+        System.out.println("   Total devices: " + count);
+        return count;
+    }
+
+    static void writeValue(JsonWriter writer, Object value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else if (value instanceof Number number) {
+            writer.value(number);
+        } else if (value instanceof Boolean bool) {
+            writer.value(bool);
+        } else if (value instanceof Map<?, ?> map) {
+            writer.beginObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writer.name(String.valueOf(entry.getKey()));
+                writeValue(writer, entry.getValue());
+            }
+            writer.endObject();
+        } else if (value instanceof Iterable<?> items) {
+            writer.beginArray();
+            for (Object item : items) {
+                writeValue(writer, item);
+            }
+            writer.endArray();
+        } else {
+            writer.value(String.valueOf(value));
+        }
+    }
+}
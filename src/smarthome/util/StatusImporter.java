@@ -2,13 +2,25 @@ package smarthome.util;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class StatusImporter {
 
@@ -26,6 +38,162 @@ public class StatusImporter {
         return snapshots;
     }
 
+    //streaming variants: the file is read with a JsonReader and only one snapshot is in memory at a time
+
+    public static long streamSnapshots(Path path, Consumer<Map<String, Object>> consumer) throws IOException {
+        long count = 0;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(path))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                consumer.accept(readObject(reader));
+                count++;
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+
+    //typed mode: brightness, target, armed, power, volume and locked are parsed into primitives
+    public static long streamTypedSnapshots(Path path, Consumer<DeviceSnapshot> consumer) throws IOException {
+        long count = 0;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(path))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                consumer.accept(readTyped(reader));
+                count++;
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+
+    //lazy stream over the snapshots, the file stays open until the stream is closed
+    public static Stream<Map<String, Object>> openSnapshots(Path path) throws IOException {
+        JsonReader reader = new JsonReader(Files.newBufferedReader(path));
+        try {
+            reader.beginArray();
+        } catch (IOException | RuntimeException ex) {
+            reader.close();
+            throw ex;
+        }
+
+        Iterator<Map<String, Object>> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return reader.hasNext();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return readObject(reader);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+    }
+
+    private static DeviceSnapshot readTyped(JsonReader reader) throws IOException {
+        DeviceSnapshot snapshot = new DeviceSnapshot();
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IOException("Expected a snapshot object at " + reader.getPath() + " but was " + reader.peek());
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            //a null value leaves the field unset, like a missing key
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (key) {
+                    case "name" -> snapshot.setName(reader.nextString());
+                    case "type" -> snapshot.setType(reader.nextString());
+                    case "brightness" -> snapshot.setBrightness(reader.nextInt());
+                    case "target" -> snapshot.setTarget(reader.nextInt());
+                    case "power" -> snapshot.setPower(reader.nextInt());
+                    case "volume" -> snapshot.setVolume(reader.nextInt());
+                    case "armed" -> snapshot.setArmed(reader.nextBoolean());
+                    case "locked" -> snapshot.setLocked(reader.nextBoolean());
+                    case "decorators" -> {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (reader.peek() == JsonToken.NULL) {
+                                reader.nextNull();
+                            } else {
+                                snapshot.addDecorator(reader.nextString());
+                            }
+                        }
+                        reader.endArray();
+                    }
+                    default -> reader.skipValue();
+                }
+            } catch (IllegalStateException | NumberFormatException ex) {
+                throw new IOException("Unexpected value for " + key + " at " + reader.getPath(), ex);
+            }
+        }
+        reader.endObject();
+        return snapshot;
+    }
+
+    //same value types as the Gson TypeToken path: numbers become Double
+    private static Map<String, Object> readObject(JsonReader reader) throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            map.put(reader.nextName(), readValue(reader));
+        }
+        reader.endObject();
+        return map;
+    }
+
+    static Object readValue(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+                return readObject(reader);
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readValue(reader));
+                }
+                reader.endArray();
+                return list;
+            case NUMBER:
+                return reader.nextDouble();
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                return reader.nextString();
+        }
+    }
+
     public static void printSnapshots(List<Map<String, Object>> snapshots) {
         System.out.println("\n Imported Device Snapshots:");
         System.out.println("─".repeat(60));